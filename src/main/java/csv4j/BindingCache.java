@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Caches the column bindings of a hydration plan per header, so that files
+ * with the same header share a single binding (and generated row binder).
+ * The cache is bounded: bindings of headers past its size are not cached, nor
+ * do they get a generated row binder, which would leak a class per binding.
+ * 
+ * @author Yannis Theocharis
+ */
+final class BindingCache {
+
+	private static final int MAX_SIZE = 64;
+
+	private final ConcurrentMap<List<String>, ColumnBinding> bindings = new ConcurrentHashMap<>();
+	private final Function<String[], ColumnBinding> binder;
+
+	BindingCache(final Function<String[], ColumnBinding> binder) {
+		this.binder = binder;
+	}
+
+	ColumnBinding get(final String[] csvFields) {
+		List<String> header = ImmutableList.copyOf(csvFields);
+		ColumnBinding binding = bindings.get(header);
+		if (binding != null) {
+			return binding;
+		}
+		if (bindings.size() >= MAX_SIZE) {
+			return binder.apply(csvFields);
+		}
+		// generate the row binder of a header once
+		return bindings.computeIfAbsent(header,
+				h -> binder.apply(csvFields).generated());
+	}
+}
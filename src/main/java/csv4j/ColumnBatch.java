@@ -0,0 +1,561 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+
+import csv4j.parse.Cells;
+import csv4j.parse.Numbers;
+
+/**
+ * Columnar hydration output: the values of a csv file stored per field of
+ * the domain type, instead of per object. Columns of int, long, double and
+ * boolean fields are primitive arrays, columns of String fields are
+ * dictionary-encoded, so scanning a batch involves no per-row objects.
+ * Fields of other types (or of types with a custom converter) are stored as
+ * converted objects.
+ * 
+ * Csv fields map to java fields as they do when hydrating objects (see
+ * {@link csv4j.annotations.CsvFields}). Rows whose cell is empty (or missing)
+ * hold the default value of the column type and are reported as empty.
+ * 
+ * Batches are created by {@link Hydrator#toColumns(java.nio.file.Path,
+ * String...)} and are immutable once returned.
+ * 
+ * @author Yannis Theocharis
+ */
+public final class ColumnBatch {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final Map<String, Column> columns;
+	// per csv column, the column it is hydrated into, or null
+	private final Column[] csvColumns;
+	private final boolean[] projection;
+	private int size;
+
+	private ColumnBatch(final Map<String, Column> columns,
+			final Column[] csvColumns) {
+		this.columns = columns;
+		this.csvColumns = csvColumns;
+		this.projection = new boolean[csvColumns.length];
+		for (int i = 0; i < csvColumns.length; i++) {
+			projection[i] = csvColumns[i] != null;
+		}
+	}
+
+	/**
+	 * @param richFields
+	 *            the rich fields of the csv columns, as resolved from the
+	 *            header
+	 * @param fields
+	 *            the names of the java fields to hydrate, or empty for all
+	 *            fields of the header
+	 */
+	static ColumnBatch of(final RichField[] richFields, final String[] fields) {
+		Map<String, Column> columns = new LinkedHashMap<>();
+		for (String field : fields) {
+			columns.put(field, null);
+		}
+		Column[] csvColumns = new Column[richFields.length];
+		for (int i = 0; i < richFields.length; i++) {
+			if (richFields[i] == null) {
+				continue;
+			}
+			Field field = richFields[i].getField();
+			String name = field.getName();
+			if (fields.length > 0 && !columns.containsKey(name)) {
+				continue;
+			}
+			Column column = columns.get(name);
+			if (column == null) {
+				column = columnOf(field.getType());
+				columns.put(name, column);
+			}
+			csvColumns[i] = column;
+		}
+		for (Map.Entry<String, Column> e : columns.entrySet()) {
+			Preconditions.checkArgument(e.getValue() != null,
+					"field %s is not in the header", e.getKey());
+		}
+		return new ColumnBatch(columns, csvColumns);
+	}
+
+	private static Column columnOf(final Class<?> type) {
+		if (ValueConverters.registered(type) == null) {
+			if (type == int.class) {
+				return new IntColumn();
+			}
+			if (type == long.class) {
+				return new LongColumn();
+			}
+			if (type == double.class) {
+				return new DoubleColumn();
+			}
+			if (type == boolean.class) {
+				return new BooleanColumn();
+			}
+			if (type == String.class) {
+				return new StringColumn();
+			}
+		}
+		return new ObjectColumn<>(type, ValueConverters.converterFor(type));
+	}
+
+	/**
+	 * @return the csv columns to tokenize
+	 */
+	boolean[] projection() {
+		return projection;
+	}
+
+	int width() {
+		return csvColumns.length;
+	}
+
+	/**
+	 * Appends the hydrated cells of a line as a new row
+	 */
+	void append(final Cells cells) {
+		int row = size++;
+		for (int i = 0; i < csvColumns.length; i++) {
+			Column column = csvColumns[i];
+			if (column == null || cells.isEmpty(i)) {
+				continue;
+			}
+			if (cells.isEscaped(i)) {
+				String value = cells.toString(i);
+				column.set(row, value, 0, value.length());
+			} else {
+				column.set(row, cells.line(), cells.start(i), cells.end(i));
+			}
+		}
+		for (Column column : columns.values()) {
+			column.size = size;
+		}
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the names of the java fields of the columns
+	 */
+	public Set<String> fields() {
+		return Collections.unmodifiableSet(columns.keySet());
+	}
+
+	/**
+	 * @param field
+	 *            the name of a java field
+	 * @return the column of the field
+	 * @throws IllegalArgumentException
+	 *             if the field has no column
+	 */
+	public Column column(final String field) {
+		Column column = columns.get(field);
+		Preconditions.checkArgument(column != null, "no column for field %s",
+				field);
+		return column;
+	}
+
+	public IntColumn intColumn(final String field) {
+		return column(field, IntColumn.class);
+	}
+
+	public LongColumn longColumn(final String field) {
+		return column(field, LongColumn.class);
+	}
+
+	public DoubleColumn doubleColumn(final String field) {
+		return column(field, DoubleColumn.class);
+	}
+
+	public BooleanColumn booleanColumn(final String field) {
+		return column(field, BooleanColumn.class);
+	}
+
+	public StringColumn stringColumn(final String field) {
+		return column(field, StringColumn.class);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <V> ObjectColumn<V> objectColumn(final String field,
+			final Class<V> type) {
+		ObjectColumn<?> column = column(field, ObjectColumn.class);
+		Preconditions.checkArgument(column.type() == type,
+				"field %s is of type %s", field, column.type().getName());
+		return (ObjectColumn<V>) column;
+	}
+
+	private <C extends Column> C column(final String field,
+			final Class<C> columnType) {
+		Column column = column(field);
+		Preconditions.checkArgument(columnType.isInstance(column),
+				"field %s is stored in a %s", field, column.getClass()
+						.getSimpleName());
+		return columnType.cast(column);
+	}
+
+	/**
+	 * Values of a java field, one per row
+	 */
+	public abstract static class Column {
+
+		private final BitSet present = new BitSet();
+		private int size;
+
+		Column() {
+		}
+
+		/**
+		 * Parses the slice of a line into the value of a row
+		 */
+		final void set(final int row, final CharSequence line,
+				final int start, final int end) {
+			parse(row, line, start, end);
+			present.set(row);
+		}
+
+		abstract void parse(int row, CharSequence line, int start, int end);
+
+		/**
+		 * @return the number of rows
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * @return whether the cell of the row was empty or missing
+		 */
+		public boolean isEmpty(final int row) {
+			Preconditions.checkElementIndex(row, size);
+			return !present.get(row);
+		}
+
+		/**
+		 * @return the type of the java field
+		 */
+		public abstract Class<?> type();
+
+		static int capacity(final int length, final int row) {
+			return Math.max(row + 1, Math.max(INITIAL_CAPACITY, 2 * length));
+		}
+	}
+
+	public static final class IntColumn extends Column {
+
+		private int[] values = new int[0];
+
+		IntColumn() {
+		}
+
+		@Override
+		void parse(final int row, final CharSequence line, final int start,
+				final int end) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, capacity(values.length, row));
+			}
+			values[row] = Numbers.parseInt(line, start, end);
+		}
+
+		public int get(final int row) {
+			Preconditions.checkElementIndex(row, size());
+			return row < values.length ? values[row] : 0;
+		}
+
+		/**
+		 * @return a copy of the values of the column
+		 */
+		public int[] toArray() {
+			return Arrays.copyOf(values, size());
+		}
+
+		@Override
+		public Class<?> type() {
+			return int.class;
+		}
+	}
+
+	public static final class LongColumn extends Column {
+
+		private long[] values = new long[0];
+
+		LongColumn() {
+		}
+
+		@Override
+		void parse(final int row, final CharSequence line, final int start,
+				final int end) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, capacity(values.length, row));
+			}
+			values[row] = Numbers.parseLong(line, start, end);
+		}
+
+		public long get(final int row) {
+			Preconditions.checkElementIndex(row, size());
+			return row < values.length ? values[row] : 0L;
+		}
+
+		/**
+		 * @return a copy of the values of the column
+		 */
+		public long[] toArray() {
+			return Arrays.copyOf(values, size());
+		}
+
+		@Override
+		public Class<?> type() {
+			return long.class;
+		}
+	}
+
+	public static final class DoubleColumn extends Column {
+
+		private double[] values = new double[0];
+
+		DoubleColumn() {
+		}
+
+		@Override
+		void parse(final int row, final CharSequence line, final int start,
+				final int end) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, capacity(values.length, row));
+			}
+			values[row] = Numbers.parseDouble(line, start, end);
+		}
+
+		public double get(final int row) {
+			Preconditions.checkElementIndex(row, size());
+			return row < values.length ? values[row] : 0.0;
+		}
+
+		/**
+		 * @return a copy of the values of the column
+		 */
+		public double[] toArray() {
+			return Arrays.copyOf(values, size());
+		}
+
+		@Override
+		public Class<?> type() {
+			return double.class;
+		}
+	}
+
+	public static final class BooleanColumn extends Column {
+
+		private final BitSet values = new BitSet();
+
+		BooleanColumn() {
+		}
+
+		@Override
+		void parse(final int row, final CharSequence line, final int start,
+				final int end) {
+			values.set(row, Numbers.parseBoolean(line, start, end));
+		}
+
+		public boolean get(final int row) {
+			Preconditions.checkElementIndex(row, size());
+			return values.get(row);
+		}
+
+		@Override
+		public Class<?> type() {
+			return boolean.class;
+		}
+	}
+
+	/**
+	 * Dictionary-encoded strings: every row holds the code of its value in the
+	 * dictionary of the distinct values of the column. Slices of lines are
+	 * looked up in the dictionary without materializing them, so each
+	 * distinct value is allocated once.
+	 */
+	public static final class StringColumn extends Column {
+
+		private static final int NONE = -1;
+
+		private int[] codes = new int[0];
+		private final List<String> dictionary = new ArrayList<>();
+		// open addressing table of codes, sized to a power of 2
+		private int[] table = newTable(16);
+
+		StringColumn() {
+		}
+
+		@Override
+		void parse(final int row, final CharSequence line, final int start,
+				final int end) {
+			if (row >= codes.length) {
+				codes = Arrays.copyOf(codes, capacity(codes.length, row));
+			}
+			if (Cells.isDecoded(line, start, end)) {
+				codes[row] = codeOf(line, start, end);
+			} else {
+				// the encoded bytes of non-ASCII chars hash and compare
+				// differently from the decoded values of the dictionary, so
+				// they would never match them
+				String value = line.subSequence(start, end).toString();
+				codes[row] = codeOf(value, 0, value.length());
+			}
+		}
+
+		private int codeOf(final CharSequence line, final int start,
+				final int end) {
+			int hash = hash(line, start, end);
+			int mask = table.length - 1;
+			for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+				int code = table[slot];
+				if (code == NONE) {
+					code = dictionary.size();
+					dictionary.add(line.subSequence(start, end).toString());
+					table[slot] = code;
+					if (2 * dictionary.size() > table.length) {
+						rehash();
+					}
+					return code;
+				}
+				if (equals(dictionary.get(code), line, start, end)) {
+					return code;
+				}
+			}
+		}
+
+		private void rehash() {
+			table = newTable(2 * table.length);
+			int mask = table.length - 1;
+			for (int code = 0; code < dictionary.size(); code++) {
+				String value = dictionary.get(code);
+				int slot = hash(value, 0, value.length()) & mask;
+				while (table[slot] != NONE) {
+					slot = (slot + 1) & mask;
+				}
+				table[slot] = code;
+			}
+		}
+
+		private static int[] newTable(final int size) {
+			int[] table = new int[size];
+			Arrays.fill(table, NONE);
+			return table;
+		}
+
+		private static int hash(final CharSequence s, final int start,
+				final int end) {
+			int h = 0;
+			for (int i = start; i < end; i++) {
+				h = 31 * h + s.charAt(i);
+			}
+			return h ^ (h >>> 16);
+		}
+
+		private static boolean equals(final String value,
+				final CharSequence s, final int start, final int end) {
+			if (value.length() != end - start) {
+				return false;
+			}
+			for (int i = 0; i < value.length(); i++) {
+				if (value.charAt(i) != s.charAt(start + i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @return the value of the row, null for empty rows
+		 */
+		public String get(final int row) {
+			return isEmpty(row) ? null : dictionary.get(codes[row]);
+		}
+
+		/**
+		 * @return the dictionary code of the value of the row, -1 for empty
+		 *         rows
+		 */
+		public int code(final int row) {
+			return isEmpty(row) ? NONE : codes[row];
+		}
+
+		/**
+		 * @return the distinct values of the column, indexed by their code
+		 */
+		public List<String> dictionary() {
+			return Collections.unmodifiableList(dictionary);
+		}
+
+		@Override
+		public Class<?> type() {
+			return String.class;
+		}
+	}
+
+	public static final class ObjectColumn<V> extends Column {
+
+		private final Class<?> type;
+		private final ValueConverter<?> converter;
+		private Object[] values = new Object[0];
+
+		ObjectColumn(final Class<?> type, final ValueConverter<?> converter) {
+			this.type = type;
+			this.converter = converter;
+		}
+
+		@Override
+		void parse(final int row, final CharSequence line, final int start,
+				final int end) {
+			if (row >= values.length) {
+				values = Arrays.copyOf(values, capacity(values.length, row));
+			}
+			values[row] = converter.convert(line.subSequence(start, end)
+					.toString());
+		}
+
+		/**
+		 * @return the value of the row, null for empty rows
+		 */
+		@SuppressWarnings("unchecked")
+		public V get(final int row) {
+			Preconditions.checkElementIndex(row, size());
+			return row < values.length ? (V) values[row] : null;
+		}
+
+		@Override
+		public Class<?> type() {
+			return type;
+		}
+	}
+}
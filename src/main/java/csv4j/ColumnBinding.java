@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+/**
+ * The columns of a csv header resolved into the setters of the fields they
+ * map to, along with the projection of the columns that are bound to any
+ * field. Unbound columns are skipped by the tokenizer, bound ones are set by
+ * the row binder of the binding.
+ * 
+ * Bindings are immutable, hydration plans cache them per header. Only cached
+ * bindings get a generated row binder (see {@link RowBinders}), as generated
+ * classes may never be unloaded, the others loop over their setters.
+ * 
+ * @author Yannis Theocharis
+ */
+final class ColumnBinding {
+
+	private final FieldSetter[] setters;
+	private final boolean[] projection;
+	private final RowBinder binder;
+
+	private ColumnBinding(final FieldSetter[] setters, final RowBinder binder) {
+		this.setters = setters;
+		this.projection = projectionOf(setters);
+		this.binder = binder;
+	}
+
+	static ColumnBinding of(final FieldSetter[] setters) {
+		return new ColumnBinding(setters, RowBinders.looping(setters));
+	}
+
+	static ColumnBinding of(final RichField[] richFields) {
+		FieldSetter[] setters = new FieldSetter[richFields.length];
+		for (int i = 0; i < richFields.length; i++) {
+			if (richFields[i] != null) {
+				setters[i] = richFields[i].getFieldSetter();
+			}
+		}
+		return of(setters);
+	}
+
+	/**
+	 * @return the same binding, with a row binder generated for its setters
+	 */
+	ColumnBinding generated() {
+		return new ColumnBinding(setters, RowBinders.of(setters));
+	}
+
+	/**
+	 * @return null if all columns are bound
+	 */
+	private static boolean[] projectionOf(final FieldSetter[] setters) {
+		boolean[] projection = new boolean[setters.length];
+		boolean all = true;
+		for (int i = 0; i < setters.length; i++) {
+			projection[i] = setters[i] != null;
+			all &= projection[i];
+		}
+		return all ? null : projection;
+	}
+
+	/**
+	 * @return the setters of the fields the columns map to, or null for
+	 *         unbound columns
+	 */
+	FieldSetter[] setters() {
+		return setters;
+	}
+
+	/**
+	 * @return the binder setting the bound columns of a row
+	 */
+	RowBinder binder() {
+		return binder;
+	}
+
+	/**
+	 * @return the columns to tokenize, or null for all columns
+	 */
+	boolean[] projection() {
+		return projection;
+	}
+
+	int width() {
+		return setters.length;
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.function.Supplier;
+
+/**
+ * Compiles the empty constructor of a domain type into a {@link Supplier},
+ * so that instantiating an object per line costs a constructor call, instead
+ * of the access checks of Class.newInstance.
+ * 
+ * As for {@link Setters}, the supplier is spun with LambdaMetafactory
+ * whenever csv4j can link against the constructor directly, and falls back
+ * to a method handle otherwise.
+ * 
+ * @author Yannis Theocharis
+ */
+class Constructors {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final String GET = "get";
+	private static final MethodType SUPPLIER = MethodType
+			.methodType(Supplier.class);
+
+	private Constructors() {
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> Supplier<T> of(final Class<T> type) {
+		final Constructor<T> constructor;
+		try {
+			constructor = type.getDeclaredConstructor();
+		} catch (NoSuchMethodException e) {
+			// types without an empty constructor fail only if instantiated
+			return () -> {
+				throw new RuntimeException(e);
+			};
+		}
+		try {
+			if (Modifier.isPublic(constructor.getModifiers())
+					&& Setters.isPublic(type) && Setters.isVisible(type)) {
+				CallSite site = LambdaMetafactory.metafactory(LOOKUP, GET,
+						SUPPLIER, MethodType.methodType(Object.class),
+						LOOKUP.unreflectConstructor(constructor),
+						MethodType.methodType(type));
+				return (Supplier<T>) site.getTarget().invoke();
+			}
+			constructor.setAccessible(true);
+			final MethodHandle mh = LOOKUP.unreflectConstructor(constructor)
+					.asType(MethodType.methodType(Object.class));
+			return () -> {
+				try {
+					return (T) mh.invokeExact();
+				} catch (Throwable t) {
+					throw Setters.rethrow(t);
+				}
+			};
+		} catch (Throwable t) {
+			throw Setters.rethrow(t);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+/**
+ * Reflection-free hydration of a domain type, generated at build time by
+ * {@link csv4j.processor.CsvHydratorProcessor}. The generated class lives in
+ * the package of the domain type and is named after it, with a "CsvHydrator"
+ * suffix (e.g. com.acme.TradeCsvHydrator for com.acme.Trade). Hydrators pick
+ * it up automatically when it is present at runtime.
+ * 
+ * Fields are identified by their index, in declaration order.
+ * 
+ * @author Yannis Theocharis
+ *
+ * @param <T>
+ *            the domain type
+ */
+public interface CsvHydrator<T> {
+
+	/**
+	 * Suffix of the names of generated hydrators
+	 */
+	String SUFFIX = "CsvHydrator";
+
+	/**
+	 * @return a new object of the domain type
+	 */
+	T newInstance();
+
+	/**
+	 * @param csvField
+	 *            a csv field, e.g. a header column
+	 * @return the index of the field the csv field maps to, or -1
+	 */
+	int fieldOf(String csvField);
+
+	/**
+	 * @param field
+	 *            the index of a field
+	 * @return the type of the field
+	 */
+	Class<?> typeOf(int field);
+
+	/**
+	 * Parses a slice of a csv line and sets it to a field. Only fields of type
+	 * int, long, double, boolean and String are parsed.
+	 * 
+	 * @param object
+	 *            the object to set
+	 * @param field
+	 *            the index of the field
+	 * @param line
+	 *            the csv line
+	 * @param start
+	 *            the start of the value in the line, inclusive
+	 * @param end
+	 *            the end of the value in the line, exclusive
+	 */
+	void parse(T object, int field, CharSequence line, int start, int end);
+
+	/**
+	 * Sets a converted value to a field
+	 * 
+	 * @param object
+	 *            the object to set
+	 * @param field
+	 *            the index of the field
+	 * @param value
+	 *            the value, of the type of the field (boxed for primitives)
+	 */
+	void set(T object, int field, Object value);
+}
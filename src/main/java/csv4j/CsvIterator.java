@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Pull-style iterator over hydrated objects. Wraps the lazy stream of a
+ * {@link Hydrator} and closes it, along with the underlying data feed, either
+ * when the last object has been read or when {@link #close()} is called,
+ * whichever happens first. Closing early stops reading the input file.
+ * 
+ * @author Yannis Theocharis
+ *
+ * @param <T>
+ *            domain type whose objects are hydrated
+ */
+public class CsvIterator<T> implements Iterator<T>, AutoCloseable {
+
+	private final Stream<T> stream;
+	private final Iterator<T> iterator;
+	private boolean closed;
+
+	CsvIterator(final Stream<T> stream) {
+		this.stream = stream;
+		this.iterator = stream.iterator();
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		if (iterator.hasNext()) {
+			return true;
+		}
+		close();
+		return false;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return iterator.next();
+	}
+
+	/**
+	 * Releases the underlying data feed. Idempotent.
+	 */
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			stream.close();
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.base.Preconditions;
+
+import csv4j.io.DataFeed;
+import csv4j.io.DataFeedImpl;
+import csv4j.io.RecordCursor;
+import csv4j.io.RecordFeed;
+
+/**
+ * Input of a {@link Hydrator}: a file, or a byte source (e.g. a socket
+ * payload, an in-memory upload or a classpath resource) that is hydrated
+ * without being spilled to a file first. Byte sources are read in a single
+ * pass, header included, through the {@link RecordFeed} of the hydrator, or
+ * as UTF-8 if its data feed reads files only.
+ * 
+ * Sources of streams and channels can be read once, and are closed once
+ * read. Sources of byte arrays and buffers can be read any number of times.
+ * 
+ * @author Yannis Theocharis
+ */
+public abstract class CsvSource {
+
+	private static final RecordFeed BYTES = new DataFeedImpl();
+
+	private CsvSource() {
+	}
+
+	/**
+	 * @param p
+	 *            path to a csv file
+	 * @return source reading the file
+	 */
+	public static CsvSource of(final Path p) {
+		Preconditions.checkNotNull(p);
+		return new CsvSource() {
+			@Override
+			RecordCursor records(final DataFeed dataFeed,
+					final String delimiter) {
+				if (dataFeed instanceof RecordFeed) {
+					return ((RecordFeed) dataFeed).records(p, delimiter);
+				}
+				return RecordCursor.of(dataFeed.lines(p));
+			}
+
+			@Override
+			public String toString() {
+				return p.toString();
+			}
+		};
+	}
+
+	/**
+	 * @param channel
+	 *            channel of csv data
+	 * @return source reading the channel once
+	 */
+	public static CsvSource of(final ReadableByteChannel channel) {
+		Preconditions.checkNotNull(channel);
+		final AtomicBoolean read = new AtomicBoolean();
+		return new CsvSource() {
+			@Override
+			RecordCursor records(final DataFeed dataFeed,
+					final String delimiter) {
+				Preconditions.checkState(!read.getAndSet(true),
+						"source already read");
+				return feed(dataFeed).records(channel, delimiter);
+			}
+		};
+	}
+
+	/**
+	 * @param in
+	 *            stream of csv data
+	 * @return source reading the stream once
+	 */
+	public static CsvSource of(final InputStream in) {
+		Preconditions.checkNotNull(in);
+		return of(Channels.newChannel(in));
+	}
+
+	/**
+	 * @param bytes
+	 *            csv data, read from its position to its limit
+	 * @return source reading the buffer, which is left untouched
+	 */
+	public static CsvSource of(final ByteBuffer bytes) {
+		Preconditions.checkNotNull(bytes);
+		final ByteBuffer data = bytes.asReadOnlyBuffer();
+		return new CsvSource() {
+			@Override
+			RecordCursor records(final DataFeed dataFeed,
+					final String delimiter) {
+				return feed(dataFeed).records(
+						new BufferChannel(data.duplicate()), delimiter);
+			}
+		};
+	}
+
+	/**
+	 * @param bytes
+	 *            csv data
+	 * @return source reading the array, which is not copied
+	 */
+	public static CsvSource of(final byte[] bytes) {
+		Preconditions.checkNotNull(bytes);
+		return of(ByteBuffer.wrap(bytes));
+	}
+
+	private static RecordFeed feed(final DataFeed dataFeed) {
+		return dataFeed instanceof RecordFeed ? (RecordFeed) dataFeed : BYTES;
+	}
+
+	/**
+	 * @return cursor over the records of this source, read through the given
+	 *         data feed
+	 */
+	abstract RecordCursor records(DataFeed dataFeed, String delimiter);
+
+	private static final class BufferChannel implements ReadableByteChannel {
+
+		private final ByteBuffer bytes;
+		private boolean open = true;
+
+		BufferChannel(final ByteBuffer bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public int read(final ByteBuffer dst) {
+			if (!bytes.hasRemaining()) {
+				return -1;
+			}
+			int n = Math.min(dst.remaining(), bytes.remaining());
+			ByteBuffer chunk = bytes.duplicate();
+			chunk.limit(chunk.position() + n);
+			dst.put(chunk);
+			bytes.position(bytes.position() + n);
+			return n;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() {
+			open = false;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import csv4j.parse.Cells;
+
+/**
+ * Sets a field of a domain object from a slice of a csv line, mapping the
+ * slice to the type of the field on the way.
+ * 
+ * @author Yannis Theocharis
+ */
+@FunctionalInterface
+interface FieldSetter {
+
+	void set(Object object, CharSequence line, int start, int end);
+
+	/**
+	 * Sets the value of the i-th cell of a tokenized csv line, unless the
+	 * cell is empty. Plain cells are set straight from the line, escaped ones
+	 * are materialized first.
+	 */
+	default void set(final Object object, final Cells cells, final int i) {
+		if (cells.isEmpty(i)) {
+			return;
+		}
+		if (cells.isEscaped(i)) {
+			String value = cells.toString(i);
+			set(object, value, 0, value.length());
+		} else {
+			set(object, cells.line(), cells.start(i), cells.end(i));
+		}
+	}
+}
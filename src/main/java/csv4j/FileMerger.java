@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reads files concurrently, on a bounded pool, and merges their objects in
+ * the order files complete. Only a few files are read ahead of the caller,
+ * so memory is bounded by the size of the files in flight, not the number
+ * of files.
+ * 
+ * Failures are isolated per file: a file that fails to be read is reported
+ * to an error handler and the other files are still read. Without a
+ * handler, failures are collected and rethrown once every other file has
+ * been merged, as suppressed exceptions of a single one.
+ * 
+ * @author Yannis Theocharis
+ *
+ * @param <T>
+ *            type of the objects read from the files
+ */
+final class FileMerger<T> implements AutoCloseable {
+
+	private static final int FILES_PER_THREAD = 2;
+	private static final ThreadFactory THREADS = new ThreadFactoryBuilder()
+			.setDaemon(true).setNameFormat("csv4j-files-%d").build();
+
+	private final Iterator<Path> files;
+	private final int total;
+	private final Function<Path, List<T>> reader;
+	private final BiConsumer<? super Path, ? super RuntimeException> onError;
+	private final ExecutorService pool;
+	private final CompletionService<List<T>> completion;
+	// only accessed by the caller
+	private final Map<Future<List<T>>, Path> pending = new HashMap<>();
+	private final List<RuntimeException> failures = new ArrayList<>();
+
+	/**
+	 * Starts reading the files
+	 * 
+	 * @param files
+	 *            the files to read
+	 * @param parallelism
+	 *            the number of files read concurrently
+	 * @param reader
+	 *            function reading the objects of a file
+	 * @param onError
+	 *            handler of the files that fail to be read, or null to
+	 *            rethrow their failures at the end
+	 */
+	FileMerger(final List<Path> files, final int parallelism,
+			final Function<Path, List<T>> reader,
+			final BiConsumer<? super Path, ? super RuntimeException> onError) {
+		this.files = files.iterator();
+		this.total = files.size();
+		this.reader = reader;
+		this.onError = onError;
+		this.pool = Executors.newFixedThreadPool(parallelism, THREADS);
+		this.completion = new ExecutorCompletionService<>(pool);
+		for (int i = 0; i < FILES_PER_THREAD * parallelism; i++) {
+			submitNext();
+		}
+	}
+
+	private void submitNext() {
+		if (files.hasNext()) {
+			Path p = files.next();
+			pending.put(completion.submit(() -> reader.apply(p)), p);
+		}
+	}
+
+	/**
+	 * Waits for the next file to be read
+	 * 
+	 * @return the objects of the next file read, or null once every file has
+	 *         been merged
+	 */
+	List<T> next() {
+		while (!pending.isEmpty()) {
+			Future<List<T>> next;
+			try {
+				next = completion.take();
+			} catch (InterruptedException e) {
+				close();
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+			Path p = pending.remove(next);
+			submitNext();
+			try {
+				return next.get();
+			} catch (InterruptedException e) {
+				close();
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				if (!(e.getCause() instanceof RuntimeException)) {
+					close();
+					throw Throwables.propagate(e.getCause());
+				}
+				fail(p, (RuntimeException) e.getCause());
+			}
+		}
+		close();
+		if (!failures.isEmpty()) {
+			RuntimeException failure = new RuntimeException(failures.size()
+					+ " of " + total + " files failed");
+			failures.forEach(failure::addSuppressed);
+			failures.clear();
+			throw failure;
+		}
+		return null;
+	}
+
+	private void fail(final Path p, final RuntimeException e) {
+		if (onError != null) {
+			onError.accept(p, e);
+		} else {
+			failures.add(new RuntimeException("failed to read " + p, e));
+		}
+	}
+
+	/**
+	 * @return the objects of all files, as a stream that closes this merger
+	 *         when closed
+	 */
+	Stream<T> stream() {
+		Spliterator<T> objects = new Spliterators.AbstractSpliterator<T>(
+				Long.MAX_VALUE, Spliterator.NONNULL) {
+
+			private Iterator<T> file = Collections.emptyIterator();
+
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				while (!file.hasNext()) {
+					List<T> next = next();
+					if (next == null) {
+						return false;
+					}
+					file = next.iterator();
+				}
+				action.accept(file.next());
+				return true;
+			}
+		};
+		return StreamSupport.stream(objects, false).onClose(this::close);
+	}
+
+	@Override
+	public void close() {
+		pool.shutdownNow();
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.util.Optional;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Hydration plan backed by a generated {@link CsvHydrator}. Generated
+ * hydrators parse the built-in types themselves, the rest of the values (and
+ * all values of types with a custom converter) are converted by
+ * {@link ValueConverters}.
+ * 
+ * Fields are reset through the reflective {@link RichType} of the domain type,
+ * as generated hydrators do not read fields.
+ * 
+ * Plans are cached per domain type, and recompiled if custom converters have
+ * been (un)registered since, as rich types are.
+ * 
+ * @author Yannis Theocharis
+ */
+final class GeneratedPlan<T> implements HydrationPlan<T> {
+
+	private static final Set<Class<?>> PARSED = ImmutableSet.<Class<?>> of(
+			int.class, long.class, double.class, boolean.class, String.class);
+
+	// absent for types without a generated hydrator
+	private static final ClassValue<Optional<GeneratedPlan<?>>> CACHE = new ClassValue<Optional<GeneratedPlan<?>>>() {
+		@Override
+		protected Optional<GeneratedPlan<?>> computeValue(Class<?> type) {
+			return Optional.ofNullable(load(type));
+		}
+	};
+
+	private final Class<T> type;
+	private final CsvHydrator<T> hydrator;
+	private final int converters;
+	private final BindingCache bindings = new BindingCache(this::bindColumns);
+
+	private GeneratedPlan(final Class<T> type, final CsvHydrator<T> hydrator) {
+		this.type = type;
+		this.hydrator = hydrator;
+		this.converters = ValueConverters.version();
+	}
+
+	/**
+	 * @return the plan of the hydrator generated for the given type, or null
+	 *         if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	static <U> HydrationPlan<U> of(final Class<U> type) {
+		Optional<GeneratedPlan<?>> plan = CACHE.get(type);
+		if (plan.isPresent()
+				&& plan.get().converters != ValueConverters.version()) {
+			CACHE.remove(type);
+			plan = CACHE.get(type);
+		}
+		return (HydrationPlan<U>) plan.orElse(null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <U> GeneratedPlan<U> load(final Class<U> type) {
+		final Class<?> generated;
+		try {
+			generated = Class.forName(type.getName() + CsvHydrator.SUFFIX,
+					true, type.getClassLoader());
+		} catch (ClassNotFoundException | LinkageError e) {
+			return null;
+		}
+		if (!CsvHydrator.class.isAssignableFrom(generated)) {
+			return null;
+		}
+		try {
+			return new GeneratedPlan<U>(type, (CsvHydrator<U>) generated
+					.getConstructor().newInstance());
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public T newInstance() {
+		return hydrator.newInstance();
+	}
+
+	@Override
+	public ColumnBinding bind(final String[] csvFields) {
+		return bindings.get(csvFields);
+	}
+
+	@Override
+	public RowBinder resetter(final String[] csvFields, final T template) {
+		return RichType.of(type).resetter(csvFields, template);
+	}
+
+	private ColumnBinding bindColumns(final String[] csvFields) {
+		FieldSetter[] setters = new FieldSetter[csvFields.length];
+		for (int i = 0; i < csvFields.length; i++) {
+			int field = hydrator.fieldOf(csvFields[i]);
+			if (field >= 0) {
+				setters[i] = setterOf(field);
+			}
+		}
+		return ColumnBinding.of(setters);
+	}
+
+	@SuppressWarnings("unchecked")
+	private FieldSetter setterOf(final int field) {
+		Class<?> type = hydrator.typeOf(field);
+		if (PARSED.contains(type) && ValueConverters.registered(type) == null) {
+			return (object, line, start, end) -> hydrator.parse((T) object,
+					field, line, start, end);
+		}
+		ValueConverter<?> converter = ValueConverters.converterFor(type);
+		return (object, line, start, end) -> hydrator.set((T) object, field,
+				converter.convert(line.subSequence(start, end).toString()));
+	}
+}
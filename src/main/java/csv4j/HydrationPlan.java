@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+/**
+ * How objects of a domain type are hydrated: how they are instantiated and
+ * how the columns of a csv header bind to their fields. Plans are either
+ * generated at build time (see {@link CsvHydrator}) or resolved through
+ * reflection (see {@link RichType}).
+ * 
+ * @author Yannis Theocharis
+ */
+interface HydrationPlan<T> {
+
+	/**
+	 * @return the generated plan of the given type if there is one, its rich
+	 *         type otherwise
+	 */
+	static <U> HydrationPlan<U> of(final Class<U> type) {
+		HydrationPlan<U> generated = GeneratedPlan.of(type);
+		return generated == null ? RichType.of(type) : generated;
+	}
+
+	T newInstance();
+
+	/**
+	 * Binds csv fields (e.g. the header of a csv file) to the fields they map
+	 * to
+	 * 
+	 * @param csvFields
+	 *            the csv fields
+	 * @return the binding of the csv fields, indexed as the csv fields
+	 */
+	ColumnBinding bind(String[] csvFields);
+
+	/**
+	 * Captures the values of the fields bound to csv fields on a template
+	 * object, for objects that are reused across lines: the returned binder
+	 * restores the template value of every field whose cell is empty.
+	 * 
+	 * @param csvFields
+	 *            the csv fields
+	 * @param template
+	 *            the object holding the values to restore
+	 * @return binder resetting the fields of empty cells
+	 */
+	RowBinder resetter(String[] csvFields, T template);
+}
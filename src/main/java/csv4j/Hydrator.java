@@ -16,16 +16,37 @@
 
 package csv4j;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 
+import csv4j.io.ChunkedFile;
 import csv4j.io.DataFeed;
 import csv4j.io.DataFeedImpl;
+import csv4j.io.RecordCursor;
+import csv4j.parse.Cells;
+import csv4j.parse.Tokenizer;
 
 /**
  * Hydrates (deserializes) csv formatted data into java objects of a given
@@ -40,16 +61,26 @@ import csv4j.io.DataFeedImpl;
 public class Hydrator<T> {
 
 	private static final String COMMA = ",";
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final long MIN_CHUNK_SIZE = 1 << 20;
 
+	private final Class<T> type;
+	private final Tokenizer tokenizer;
 	private final String delimiter;
-	private final RichType<T> richType;
+	private final boolean asciiDelimiter;
+	private final HydrationPlan<T> plan;
+	private final Supplier<? extends T> factory;
 	private final DataFeed dataFeed;
 
 	private Hydrator(final Class<T> type, final DataFeed dataFeed,
-			final String delimiter) {
-		this.richType = RichType.of(type);
+			final String delimiter, final Supplier<? extends T> factory) {
+		this.type = type;
+		this.plan = HydrationPlan.of(type);
+		this.factory = factory == null ? plan::newInstance : factory;
 		this.dataFeed = dataFeed;
 		this.delimiter = delimiter;
+		this.tokenizer = Tokenizer.of(delimiter);
+		this.asciiDelimiter = CharMatcher.ASCII.matchesAllOf(delimiter);
 	}
 
 	/**
@@ -106,7 +137,48 @@ public class Hydrator<T> {
 		Preconditions.checkNotNull(type);
 		Preconditions.checkNotNull(dataFeed);
 		Preconditions.checkNotNull(delimiter);
-		return new Hydrator<U>(type, dataFeed, delimiter);
+		return new Hydrator<U>(type, dataFeed, delimiter, null);
+	}
+
+	/**
+	 * Hydrator factory with custom object factory. Objects are obtained from
+	 * the factory instead of the empty constructor of the domain type, e.g.
+	 * for hydrating pooled or pre-allocated instances (or instances of a
+	 * subtype). The domain type does not need an empty constructor then.
+	 * 
+	 * @param type
+	 *            the domain type
+	 * @param factory
+	 *            supplies the object to hydrate for every line
+	 * @return hydrator of the given type
+	 */
+	public static <U> Hydrator<U> of(final Class<U> type,
+			final Supplier<? extends U> factory) {
+		return of(type, new DataFeedImpl(), COMMA, factory);
+	}
+
+	/**
+	 * Hydrator factory with custom dataFeed, delimiter and object factory
+	 * 
+	 * @param type
+	 *            the domain type
+	 * @param dataFeed
+	 *            the data feed
+	 * @param delimiter
+	 *            the input file delimiter
+	 * @param factory
+	 *            supplies the object to hydrate for every line
+	 * @return hydrator of the given type
+	 * @see #of(Class, Supplier)
+	 */
+	public static <U> Hydrator<U> of(final Class<U> type,
+			final DataFeed dataFeed, final String delimiter,
+			final Supplier<? extends U> factory) {
+		Preconditions.checkNotNull(type);
+		Preconditions.checkNotNull(dataFeed);
+		Preconditions.checkNotNull(delimiter);
+		Preconditions.checkNotNull(factory);
+		return new Hydrator<U>(type, dataFeed, delimiter, factory);
 	}
 
 	/**
@@ -117,40 +189,596 @@ public class Hydrator<T> {
 	 * @return list of objects hydrated with data from the input csv file
 	 */
 	public List<T> fromCSV(final Path p) {
-		final String[] csvFields = readHeaders(p);
-		return readDataLines(p, csvFields);
+		return fromCSV(CsvSource.of(p));
+	}
+
+	/**
+	 * Reads csv data from a file or a byte source and returns list of
+	 * hydrated objects of the given type.
+	 * 
+	 * @param source
+	 *            the csv data
+	 * @return list of objects hydrated with the csv data
+	 */
+	public List<T> fromCSV(final CsvSource source) {
+		try (Stream<T> objects = stream(source)) {
+			return objects.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Reads a csv file lazily. Objects are hydrated one line at a time, as the
+	 * returned stream is consumed, so memory usage does not depend on the size
+	 * of the input. Short-circuiting operations (e.g. findFirst, limit) stop
+	 * reading the rest of the file.
+	 * 
+	 * The returned stream holds the underlying data feed open and has to be
+	 * closed, preferably in a try-with-resources block.
+	 * 
+	 * @param p
+	 *            path to the input csv file
+	 * @return stream of objects hydrated with data from the input csv file
+	 */
+	public Stream<T> stream(final Path p) {
+		return stream(CsvSource.of(p));
+	}
+
+	/**
+	 * Reads csv data from a file or a byte source lazily
+	 * 
+	 * @param source
+	 *            the csv data
+	 * @return stream of objects hydrated with the csv data
+	 * @see #stream(Path)
+	 */
+	public Stream<T> stream(final CsvSource source) {
+		Preconditions.checkNotNull(source);
+		final RecordCursor records = open(source);
+		try {
+			// header and data lines come from a single pass over the feed
+			final ColumnBinding columns = plan.bind(readHeaders(records));
+			Spliterator<T> objects = new Spliterators.AbstractSpliterator<T>(
+					Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+				@Override
+				public boolean tryAdvance(Consumer<? super T> action) {
+					if (!records.next()) {
+						return false;
+					}
+					action.accept(toObject(columns, records.record()));
+					return true;
+				}
+			};
+			return StreamSupport.stream(objects, false).onClose(records::close);
+		} catch (RuntimeException e) {
+			records.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Pull-style alternative to {@link #stream(Path)}. The returned iterator
+	 * releases the underlying data feed as soon as it is exhausted or closed.
+	 * 
+	 * @param p
+	 *            path to the input csv file
+	 * @return iterator over objects hydrated with data from the input csv file
+	 */
+	public CsvIterator<T> iterator(final Path p) {
+		return new CsvIterator<T>(stream(p));
+	}
+
+	/**
+	 * Pull-style alternative to {@link #stream(CsvSource)}
+	 * 
+	 * @param source
+	 *            the csv data
+	 * @return iterator over objects hydrated with the csv data
+	 */
+	public CsvIterator<T> iterator(final CsvSource source) {
+		return new CsvIterator<T>(stream(source));
+	}
+
+	/**
+	 * Hydrates the objects of a csv file one line at a time and passes them to
+	 * an action, without collecting them.
+	 * 
+	 * @see #forEach(Path, Consumer, boolean)
+	 */
+	public void forEach(final Path p, final Consumer<? super T> action) {
+		forEach(p, action, false);
+	}
+
+	/**
+	 * Hydrates the objects of csv data from a file or a byte source one line
+	 * at a time and passes them to an action, without collecting them.
+	 * 
+	 * @see #forEach(Path, Consumer, boolean)
+	 */
+	public void forEach(final CsvSource source,
+			final Consumer<? super T> action) {
+		forEach(source, action, false);
+	}
+
+	/**
+	 * Hydrates the objects of a csv file one line at a time and passes them to
+	 * an action, without collecting them.
+	 * 
+	 * In reuse mode, a single object is obtained from the object factory and
+	 * every line is hydrated into it, so that scanning a file allocates no
+	 * domain objects. Fields whose cell is empty are reset to the values the
+	 * object had before the first line. The action must not retain the
+	 * object, as it is overwritten by the next line.
+	 * 
+	 * @param p
+	 *            path to the input csv file
+	 * @param action
+	 *            the action to perform on every object
+	 * @param reuse
+	 *            whether every line is hydrated into the same object
+	 */
+	public void forEach(final Path p, final Consumer<? super T> action,
+			final boolean reuse) {
+		forEach(CsvSource.of(p), action, reuse);
+	}
+
+	/**
+	 * Hydrates the objects of csv data from a file or a byte source one line
+	 * at a time and passes them to an action, without collecting them.
+	 * 
+	 * @param source
+	 *            the csv data
+	 * @param action
+	 *            the action to perform on every object
+	 * @param reuse
+	 *            whether every line is hydrated into the same object
+	 * @see #forEach(Path, Consumer, boolean)
+	 */
+	public void forEach(final CsvSource source,
+			final Consumer<? super T> action, final boolean reuse) {
+		Preconditions.checkNotNull(source);
+		Preconditions.checkNotNull(action);
+		if (!reuse) {
+			try (Stream<T> objects = stream(source)) {
+				objects.forEach(action);
+			}
+			return;
+		}
+		try (RecordCursor records = open(source)) {
+			String[] header = readHeaders(records);
+			ColumnBinding columns = plan.bind(header);
+			T object = factory.get();
+			Preconditions.checkState(object != null,
+					"null object from factory");
+			RowBinder resetter = plan.resetter(header, object);
+			while (records.next()) {
+				Cells csvValues = tokenize(columns, records.record());
+				resetter.bind(object, csvValues);
+				columns.binder().bind(object, csvValues);
+				action.accept(object);
+			}
+		}
+	}
+
+	/**
+	 * Reads a csv file into columns instead of objects. Only the cells of the
+	 * requested fields are tokenized and parsed.
+	 * 
+	 * @param p
+	 *            path to the input csv file
+	 * @param fields
+	 *            names of the java fields to read, or none for all fields
+	 *            bound to the header
+	 * @return the columns of the requested fields
+	 * @throws IllegalArgumentException
+	 *             if a requested field is not bound to the header
+	 * @see ColumnBatch
+	 */
+	public ColumnBatch toColumns(final Path p, final String... fields) {
+		Preconditions.checkNotNull(p);
+		Preconditions.checkNotNull(fields);
+		try (RecordCursor records = open(p)) {
+			ColumnBatch batch = ColumnBatch.of(RichType.of(type)
+					.richFieldsOf(readHeaders(records)), fields);
+			while (records.next()) {
+				Cells csvValues = tokenizer.tokenize(records.record(),
+						batch.projection());
+				Preconditions.checkState(batch.width() == csvValues.count());
+				batch.append(csvValues);
+			}
+			return batch;
+		}
+	}
+
+	/**
+	 * Reads a csv file into off-heap storage, for datasets larger than the
+	 * heap. Objects are hydrated from the returned batch on demand.
+	 * 
+	 * @param p
+	 *            path to the input csv file
+	 * @return the rows of the csv file
+	 * @see OffHeapBatch
+	 */
+	public OffHeapBatch<T> toOffHeap(final Path p) {
+		Preconditions.checkNotNull(p);
+		try (RecordCursor records = open(p)) {
+			// the first segments are sized from the file
+			OffHeapBatch<T> batch = OffHeapBatch.of(factory, RichType
+					.of(type).richFieldsOf(readHeaders(records)),
+					Files.size(p));
+			while (records.next()) {
+				Cells csvValues = tokenizer.tokenize(records.record(),
+						batch.projection());
+				Preconditions.checkState(batch.width() == csvValues.count());
+				batch.append(csvValues);
+			}
+			return batch;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Reports the deduplication of the String fields annotated with
+	 * {@link csv4j.annotations.CsvDedup}. Caches are shared by all hydrators
+	 * of the domain type, so are their hits and misses.
+	 * 
+	 * @return the caches of the deduplicated fields, by java field name
+	 */
+	public Map<String, StringDedup> dedupStats() {
+		return StringDedup.of(type);
+	}
+
+	/**
+	 * Reads a csv file lazily, in pipelined stages.
+	 * 
+	 * @see #streamPipelined(CsvSource, int)
+	 */
+	public Stream<T> streamPipelined(final Path p, final int workers) {
+		return streamPipelined(CsvSource.of(p), workers);
+	}
+
+	/**
+	 * Reads csv data lazily, in pipelined stages: a reader thread reads
+	 * batches of lines while worker threads tokenize them and hydrate
+	 * objects, so reading overlaps with parsing. Unlike
+	 * {@link #fromCSVParallel(Path, int)}, any source can be read this way
+	 * (e.g. compressed files or streams), not only local files.
+	 * 
+	 * Objects are streamed in the order of the lines. Failures of the reader
+	 * or the workers are rethrown when the stream reaches them. The returned
+	 * stream holds the pipeline threads and has to be closed; closing it
+	 * early stops them.
+	 * 
+	 * @param source
+	 *            the csv data
+	 * @param workers
+	 *            the number of worker threads
+	 * @return stream of objects hydrated with the csv data
+	 */
+	public Stream<T> streamPipelined(final CsvSource source,
+			final int workers) {
+		return pipeline(source, workers, Pipeline.BATCH_SIZE).stream();
+	}
+
+	/**
+	 * Hydrates the objects of a csv file in batches.
+	 * 
+	 * @see #forEachBatch(CsvSource, int, Consumer)
+	 */
+	public void forEachBatch(final Path p, final int batchSize,
+			final Consumer<? super List<T>> action) {
+		forEachBatch(CsvSource.of(p), batchSize, action);
+	}
+
+	/**
+	 * Hydrates the objects of csv data in batches and passes every batch to
+	 * an action, e.g. for bulk inserts. Every batch holds batchSize objects,
+	 * in the order of the lines, except for the last one which may hold
+	 * fewer.
+	 * 
+	 * The same (unmodifiable) list is passed for every batch and is cleared
+	 * once the action returns, so the action must copy the objects it needs
+	 * to retain.
+	 * 
+	 * @param source
+	 *            the csv data
+	 * @param batchSize
+	 *            the number of objects per batch
+	 * @param action
+	 *            the action to perform on every batch
+	 */
+	public void forEachBatch(final CsvSource source, final int batchSize,
+			final Consumer<? super List<T>> action) {
+		Preconditions.checkNotNull(source);
+		Preconditions.checkArgument(batchSize > 0,
+				"batch size must be positive");
+		Preconditions.checkNotNull(action);
+		try (RecordCursor records = open(source)) {
+			ColumnBinding columns = plan.bind(readHeaders(records));
+			List<T> batch = new ArrayList<>(batchSize);
+			List<T> view = Collections.unmodifiableList(batch);
+			while (records.next()) {
+				batch.add(toObject(columns, records.record()));
+				if (batch.size() == batchSize) {
+					action.accept(view);
+					batch.clear();
+				}
+			}
+			if (!batch.isEmpty()) {
+				action.accept(view);
+			}
+		}
+	}
+
+	/**
+	 * Hydrates the objects of a csv file in batches, in pipelined stages.
+	 * 
+	 * @see #forEachBatch(CsvSource, int, int, Consumer)
+	 */
+	public void forEachBatch(final Path p, final int batchSize,
+			final int workers, final Consumer<? super List<T>> action) {
+		forEachBatch(CsvSource.of(p), batchSize, workers, action);
+	}
+
+	/**
+	 * Hydrates the objects of csv data in batches, in pipelined stages (see
+	 * {@link #streamPipelined(CsvSource, int)}): batches are hydrated by
+	 * worker threads while the action runs on the calling thread, in the
+	 * order of the lines. Every batch is a new list, which the action may
+	 * retain.
+	 * 
+	 * @param source
+	 *            the csv data
+	 * @param batchSize
+	 *            the number of objects per batch
+	 * @param workers
+	 *            the number of worker threads
+	 * @param action
+	 *            the action to perform on every batch
+	 */
+	public void forEachBatch(final CsvSource source, final int batchSize,
+			final int workers, final Consumer<? super List<T>> action) {
+		Preconditions.checkArgument(batchSize > 0,
+				"batch size must be positive");
+		Preconditions.checkNotNull(action);
+		try (Pipeline<T> pipeline = pipeline(source, workers, batchSize)) {
+			List<T> batch;
+			while ((batch = pipeline.next()) != null) {
+				action.accept(batch);
+			}
+		}
+	}
+
+	private Pipeline<T> pipeline(final CsvSource source, final int workers,
+			final int batchSize) {
+		Preconditions.checkNotNull(source);
+		Preconditions.checkArgument(workers > 0, "workers must be positive");
+		RecordCursor records = open(source);
+		final ColumnBinding columns;
+		try {
+			columns = plan.bind(readHeaders(records));
+		} catch (RuntimeException e) {
+			records.close();
+			throw e;
+		}
+		return new Pipeline<T>(records, workers, batchSize,
+				lines -> toObjects(columns, lines));
+	}
+
+	/**
+	 * Reads the csv files of a directory concurrently, with as many threads
+	 * as available processors. A file that fails to be read does not stop
+	 * the others: failures are rethrown once the objects of every other file
+	 * have been streamed.
+	 * 
+	 * @see #fromDirectory(Path, String, int, BiConsumer)
+	 */
+	public Stream<T> fromDirectory(final Path dir, final String glob) {
+		return fromDirectory(dir, glob, Runtime.getRuntime()
+				.availableProcessors(), null);
+	}
+
+	/**
+	 * Reads the csv files of a directory (e.g. the parts of a dataset)
+	 * concurrently and streams their objects as files complete. Objects of a
+	 * file are streamed together, in the order of its lines, but files are
+	 * merged in no particular order. Files with identical headers share the
+	 * same compiled binding, so headers are resolved once per distinct
+	 * header.
+	 * 
+	 * Failures are isolated per file: a file that fails to be read is passed
+	 * to the error handler, along with the failure, and the other files are
+	 * still read. Without a handler, failures are rethrown at the end of the
+	 * stream, as suppressed exceptions of a single one.
+	 * 
+	 * The returned stream holds the reading threads and has to be closed;
+	 * closing it early stops them.
+	 * 
+	 * @param dir
+	 *            the directory
+	 * @param glob
+	 *            glob pattern of the names of the files to read, e.g.
+	 *            "part-*.csv" (see {@link Files#newDirectoryStream(Path,
+	 *            String)})
+	 * @param parallelism
+	 *            the number of files read concurrently
+	 * @param onError
+	 *            handler of the files that fail to be read, or null
+	 * @return stream of objects hydrated with data from the files
+	 */
+	public Stream<T> fromDirectory(final Path dir, final String glob,
+			final int parallelism,
+			final BiConsumer<? super Path, ? super RuntimeException> onError) {
+		Preconditions.checkNotNull(dir);
+		Preconditions.checkNotNull(glob);
+		Preconditions.checkArgument(parallelism > 0,
+				"parallelism must be positive");
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir,
+				glob)) {
+			for (Path entry : entries) {
+				if (Files.isRegularFile(entry)) {
+					files.add(entry);
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		Collections.sort(files);
+		return new FileMerger<T>(files, parallelism, this::fromCSV, onError)
+				.stream();
+	}
+
+	/**
+	 * Reads a local csv file in parallel and returns list of hydrated objects
+	 * of the given type, in the order they appear in the file.
+	 * 
+	 * @see #fromCSVParallel(Path, int, boolean)
+	 */
+	public List<T> fromCSVParallel(final Path p, final int parallelism) {
+		return fromCSVParallel(p, parallelism, true);
+	}
+
+	/**
+	 * Reads a local csv file in parallel and returns list of hydrated objects
+	 * of the given type. The file is split into chunks of records (see
+	 * {@link ChunkedFile}) that are hydrated concurrently. The file is read
+	 * directly, in the charset of the data feed of the hydrator, which has to
+	 * read plain files in an ASCII-compatible charset. The delimiter has to be
+	 * ASCII.
+	 * 
+	 * @param p
+	 *            path to the input csv file
+	 * @param parallelism
+	 *            the number of threads hydrating chunks
+	 * @param ordered
+	 *            whether objects are returned in the order they appear in the
+	 *            file, or in the order their chunks complete
+	 * @return list of objects hydrated with data from the input csv file
+	 * @throws IllegalArgumentException
+	 *             if the data feed or the delimiter of the hydrator cannot be
+	 *             read in chunks (see {@link ChunkedFile})
+	 */
+	public List<T> fromCSVParallel(final Path p, final int parallelism,
+			final boolean ordered) {
+		Preconditions.checkNotNull(p);
+		Preconditions.checkArgument(parallelism > 0);
+		Preconditions.checkArgument(asciiDelimiter, "non ASCII delimiter");
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try (ChunkedFile file = ChunkedFile.open(p, dataFeed, delimiter)) {
+			String header = file.header();
+			Preconditions.checkState(header != null, "missing header line");
+			ColumnBinding columns = plan.bind(tokenizer.split(header));
+			long[] chunks = file.split(parallelism * CHUNKS_PER_THREAD,
+					MIN_CHUNK_SIZE, pool);
+
+			CompletionService<List<T>> completion = new ExecutorCompletionService<>(
+					pool);
+			List<Future<List<T>>> futures = new ArrayList<>();
+			for (int i = 0; i < chunks.length - 1; i++) {
+				long from = chunks[i];
+				long to = chunks[i + 1];
+				futures.add(completion.submit(() -> {
+					try (RecordCursor records = file.records(from, to)) {
+						List<T> chunk = new ArrayList<>();
+						while (records.next()) {
+							chunk.add(toObject(columns, records.record()));
+						}
+						return chunk;
+					}
+				}));
+			}
+			List<T> objects = new ArrayList<>();
+			for (int i = 0; i < futures.size(); i++) {
+				Future<List<T>> chunk = ordered ? futures.get(i) : completion
+						.take();
+				objects.addAll(chunk.get());
+			}
+			return objects;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
 	}
 
 	String[] readHeaders(final Path p) {
 		Preconditions.checkNotNull(p);
-		try (Stream<String> lines = dataFeed.lines(p)) {
-			Optional<String> firstLine = lines.findFirst();
-			return firstLine.get().split(delimiter, -1);
+		try (RecordCursor records = open(p)) {
+			return readHeaders(records);
 		}
 	}
 
+	private String[] readHeaders(final RecordCursor records) {
+		Preconditions.checkState(records.next(), "missing header line");
+		return tokenizer.split(records.record());
+	}
+
 	List<T> readDataLines(final Path p, final String[] csvFields) {
-		try (Stream<String> lines = dataFeed.lines(p)) {
-			return lines
-					.skip(1)
-					.map(line -> toObject(csvFields, line.split(delimiter, -1)))
-					.collect(Collectors.toList());
+		ColumnBinding columns = plan.bind(csvFields);
+		try (RecordCursor records = open(p)) {
+			List<T> objects = new ArrayList<>();
+			// skip header
+			if (records.next()) {
+				while (records.next()) {
+					objects.add(toObject(columns, records.record()));
+				}
+			}
+			return objects;
 		}
 	}
 
-	private T toObject(final String[] csvFields, final String[] scvValues) {
-		Preconditions.checkState(csvFields.length == scvValues.length);
-		T object = Sane.newInstance(richType.getType());
+	/**
+	 * Opens the records of a file, without materializing them if the data
+	 * feed supports it (byte level feeds need an ASCII delimiter).
+	 */
+	private RecordCursor open(final Path p) {
+		return open(CsvSource.of(p));
+	}
 
-		for (int i = 0; i < csvFields.length; i++) {
-			String csvField = csvFields[i];
-			String csvValue = scvValues[i];
-			RichField richField = richType.richFieldOf(csvField);
-			// ignore csv fields not matching any domain object field
-			if (richField != null && !csvValue.isEmpty()) {
-				richField.setField(object, csvValue);
-			}
+	private RecordCursor open(final CsvSource source) {
+		return source.records(dataFeed, delimiter);
+	}
+
+	private List<T> toObjects(final ColumnBinding columns,
+			final List<CharSequence> lines) {
+		List<T> objects = new ArrayList<>(lines.size());
+		for (CharSequence line : lines) {
+			objects.add(toObject(columns, line));
 		}
+		return objects;
+	}
+
+	/**
+	 * Tokenizes the columns of a line that are bound to the domain type
+	 */
+	private Cells tokenize(final ColumnBinding columns,
+			final CharSequence line) {
+		Cells csvValues = tokenizer.tokenize(line, columns.projection());
+		Preconditions.checkState(columns.width() == csvValues.count());
+		return csvValues;
+	}
+
+	/**
+	 * Hydrates an object from a line, tokenizing only the columns bound to
+	 * the domain type
+	 * 
+	 * @param columns
+	 *            the columns of the line, as resolved from the header
+	 * @param line
+	 *            the csv line
+	 */
+	private T toObject(final ColumnBinding columns, final CharSequence line) {
+		Cells csvValues = tokenize(columns, line);
+		T object = factory.get();
+		Preconditions.checkState(object != null, "null object from factory");
+		columns.binder().bind(object, csvValues);
 		return object;
 	}
 }
\ No newline at end of file
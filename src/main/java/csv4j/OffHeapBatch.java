@@ -0,0 +1,507 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import com.google.common.base.Preconditions;
+
+import csv4j.parse.Cells;
+import csv4j.parse.Numbers;
+
+/**
+ * Hydration output stored off-heap, for datasets that do not fit (or should
+ * not live) in the heap. Rows are laid out with a fixed width, per field of
+ * the domain type bound to the header: a bitmap of the non-empty fields,
+ * followed by a slot per field (4 bytes for int, 8 for long and double, 1 for
+ * boolean). Strings are stored in a separate off-heap string heap (Latin-1
+ * when possible, UTF-16 otherwise), as are the values of fields of other
+ * types, which are converted only when read.
+ * 
+ * Storage is split in direct buffers (segments), so that the heap only holds
+ * a few large buffer objects, whatever the number of rows. The first segments
+ * are sized from the expected size of the data (e.g. the size of the file),
+ * later ones double in size up to 64MB, so that small batches reserve little
+ * direct memory. The memory is released when the batch is garbage collected.
+ * Batches can be read concurrently, once stored.
+ * 
+ * Rows are read through {@link Row} views, field by field, or materialized
+ * into objects of the domain type on demand.
+ * 
+ * @author Yannis Theocharis
+ *
+ * @param <T>
+ *            the domain type
+ */
+public final class OffHeapBatch<T> {
+
+	static final int MIN_SEGMENT_SIZE = 1 << 16;
+	static final int MAX_SEGMENT_SIZE = 1 << 26;
+
+	private final Supplier<? extends T> factory;
+	private final Map<String, Integer> fields;
+	private final Slot[] slots;
+	// per csv column, the slot it is stored in, or null
+	private final Slot[] csvSlots;
+	private final boolean[] projection;
+	private final int bitmapSize;
+	private final int rowSize;
+	private final int initialSegmentSize;
+	private final int maxSegmentSize;
+	private final List<ByteBuffer> segments = new ArrayList<>();
+	// per segment, the index of its first row
+	private int[] firstRows = new int[8];
+	// the index past the last row of the last segment
+	private int capacity;
+	private final StringHeap strings;
+	private int size;
+
+	private OffHeapBatch(final Supplier<? extends T> factory,
+			final RichField[] richFields, final int initialSegmentSize,
+			final int maxSegmentSize) {
+		this.factory = factory;
+		this.initialSegmentSize = initialSegmentSize;
+		this.maxSegmentSize = maxSegmentSize;
+		this.strings = new StringHeap(initialSegmentSize, maxSegmentSize);
+		Map<String, Slot> byName = new LinkedHashMap<>();
+		this.csvSlots = new Slot[richFields.length];
+		this.projection = new boolean[richFields.length];
+		for (int i = 0; i < richFields.length; i++) {
+			if (richFields[i] != null) {
+				String name = richFields[i].getField().getName();
+				Slot slot = byName.get(name);
+				if (slot == null) {
+					slot = new Slot(byName.size(), richFields[i]);
+					byName.put(name, slot);
+				}
+				csvSlots[i] = slot;
+				projection[i] = true;
+			}
+		}
+		this.slots = byName.values().toArray(new Slot[0]);
+		this.fields = new LinkedHashMap<>();
+		this.bitmapSize = (slots.length + 7) / 8;
+		int offset = bitmapSize;
+		for (Slot slot : slots) {
+			fields.put(slot.name, slot.index);
+			slot.offset = offset;
+			offset += slot.kind.width;
+		}
+		this.rowSize = Math.max(offset, 1);
+		Preconditions.checkArgument(rowSize <= maxSegmentSize, "rows too wide");
+	}
+
+	/**
+	 * @param expectedSize
+	 *            the expected size of the data in bytes (e.g. the size of the
+	 *            csv file), which the first segments are sized from
+	 */
+	static <U> OffHeapBatch<U> of(final Supplier<? extends U> factory,
+			final RichField[] richFields, final long expectedSize) {
+		long size = Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE,
+				expectedSize));
+		return of(factory, richFields, (int) size, MAX_SEGMENT_SIZE);
+	}
+
+	static <U> OffHeapBatch<U> of(final Supplier<? extends U> factory,
+			final RichField[] richFields, final int initialSegmentSize,
+			final int maxSegmentSize) {
+		Preconditions.checkArgument(initialSegmentSize > 0);
+		Preconditions.checkArgument(maxSegmentSize >= initialSegmentSize);
+		return new OffHeapBatch<U>(factory, richFields, initialSegmentSize,
+				maxSegmentSize);
+	}
+
+	/**
+	 * @return the csv columns to tokenize
+	 */
+	boolean[] projection() {
+		return projection;
+	}
+
+	int width() {
+		return csvSlots.length;
+	}
+
+	/**
+	 * Stores the cells of a line as a new row
+	 */
+	void append(final Cells cells) {
+		int row = size;
+		if (row == capacity) {
+			addSegment();
+		}
+		int segment = segments.size() - 1;
+		ByteBuffer buffer = segments.get(segment);
+		int base = (row - firstRows[segment]) * rowSize;
+		for (int i = 0; i < csvSlots.length; i++) {
+			Slot slot = csvSlots[i];
+			if (slot == null || cells.isEmpty(i)) {
+				continue;
+			}
+			CharSequence line = cells.line();
+			int start = cells.start(i);
+			int end = cells.end(i);
+			// values stored as strings are decoded first, as lines may be
+			// views over encoded bytes
+			boolean text = slot.kind == Kind.STRING || slot.kind == Kind.OBJECT;
+			if (cells.isEscaped(i) || text
+					&& !Cells.isDecoded(line, start, end)) {
+				line = cells.toString(i);
+				start = 0;
+				end = line.length();
+			}
+			slot.write(buffer, base + slot.offset, line, start, end, strings);
+			int bit = base + slot.index / 8;
+			buffer.put(bit, (byte) (buffer.get(bit) | 1 << slot.index % 8));
+		}
+		size++;
+	}
+
+	/**
+	 * Adds a segment twice the size of the last one, up to the maximum size
+	 */
+	private void addSegment() {
+		int segment = segments.size();
+		int bytes = segment == 0 ? initialSegmentSize : Math.min(
+				maxSegmentSize, 2 * segments.get(segment - 1).capacity());
+		int rows = Math.max(1, bytes / rowSize);
+		segments.add(ByteBuffer.allocateDirect(rows * rowSize));
+		if (segment == firstRows.length) {
+			firstRows = Arrays.copyOf(firstRows, 2 * segment);
+		}
+		firstRows[segment] = capacity;
+		capacity += rows;
+	}
+
+	/**
+	 * @return the segment holding the row
+	 */
+	private int segmentOf(final int row) {
+		int segment = Arrays.binarySearch(firstRows, 0, segments.size(), row);
+		return segment >= 0 ? segment : -segment - 2;
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the names of the java fields stored, in the order of their
+	 *         indexes
+	 */
+	public Set<String> fields() {
+		return fields.keySet();
+	}
+
+	/**
+	 * @param name
+	 *            the name of a java field
+	 * @return the index of the field, for reading it from rows
+	 * @throws IllegalArgumentException
+	 *             if the field is not stored
+	 */
+	public int field(final String name) {
+		Integer index = fields.get(name);
+		Preconditions.checkArgument(index != null, "field %s is not stored",
+				name);
+		return index;
+	}
+
+	/**
+	 * @return a view of the row at the given index
+	 */
+	public Row row(final int index) {
+		return new Row().at(index);
+	}
+
+	/**
+	 * Lightweight view of a row, reading fields straight from off-heap
+	 * storage. Views can be moved across rows (see {@link #at(int)}), so that
+	 * scanning a batch needs a single view.
+	 */
+	public final class Row {
+
+		private ByteBuffer buffer;
+		// the rows of the segment of the buffer
+		private int firstRow;
+		private int lastRow = -1;
+		private int base;
+		private int index;
+
+		private Row() {
+		}
+
+		/**
+		 * Moves the view to the row at the given index
+		 * 
+		 * @return this view
+		 */
+		public Row at(final int index) {
+			Preconditions.checkElementIndex(index, size);
+			this.index = index;
+			if (index < firstRow || index > lastRow) {
+				// scans stay within a segment for many rows
+				int segment = segmentOf(index);
+				this.buffer = segments.get(segment);
+				this.firstRow = firstRows[segment];
+				this.lastRow = firstRow + buffer.capacity() / rowSize - 1;
+			}
+			this.base = (index - firstRow) * rowSize;
+			return this;
+		}
+
+		/**
+		 * @return the index of the row
+		 */
+		public int index() {
+			return index;
+		}
+
+		/**
+		 * @return whether the cell of the field was empty or missing
+		 */
+		public boolean isEmpty(final int field) {
+			Preconditions.checkElementIndex(field, slots.length);
+			return (buffer.get(base + field / 8) & 1 << field % 8) == 0;
+		}
+
+		public int getInt(final int field) {
+			return buffer.getInt(base + slot(field, Kind.INT).offset);
+		}
+
+		public long getLong(final int field) {
+			return buffer.getLong(base + slot(field, Kind.LONG).offset);
+		}
+
+		public double getDouble(final int field) {
+			return buffer.getDouble(base + slot(field, Kind.DOUBLE).offset);
+		}
+
+		public boolean getBoolean(final int field) {
+			return buffer.get(base + slot(field, Kind.BOOLEAN).offset) != 0;
+		}
+
+		/**
+		 * @return the value of a String field, null if empty
+		 */
+		public String getString(final int field) {
+			Slot slot = slot(field, Kind.STRING);
+			return isEmpty(field) ? null : strings.get(buffer, base
+					+ slot.offset);
+		}
+
+		/**
+		 * @return the value of the field, boxed if primitive, converted if
+		 *         stored as text, null if empty
+		 */
+		public Object get(final int field) {
+			if (isEmpty(field)) {
+				return null;
+			}
+			Slot slot = slots[field];
+			int offset = base + slot.offset;
+			switch (slot.kind) {
+			case INT:
+				return buffer.getInt(offset);
+			case LONG:
+				return buffer.getLong(offset);
+			case DOUBLE:
+				return buffer.getDouble(offset);
+			case BOOLEAN:
+				return buffer.get(offset) != 0;
+			case STRING:
+				return strings.get(buffer, offset);
+			default:
+				return slot.converter.convert(strings.get(buffer, offset));
+			}
+		}
+
+		/**
+		 * Hydrates an object of the domain type from the row. Fields whose
+		 * cell was empty are not set.
+		 */
+		public T toObject() {
+			T object = factory.get();
+			for (Slot slot : slots) {
+				if (!isEmpty(slot.index)) {
+					slot.valueSetter.accept(object, get(slot.index));
+				}
+			}
+			return object;
+		}
+
+		private Slot slot(final int field, final Kind kind) {
+			Preconditions.checkElementIndex(field, slots.length);
+			Slot slot = slots[field];
+			Preconditions.checkArgument(slot.kind == kind,
+					"field %s is not of type %s", slot.name, kind);
+			return slot;
+		}
+	}
+
+	private enum Kind {
+		INT(4), LONG(8), DOUBLE(8), BOOLEAN(1), STRING(StringHeap.REF_SIZE),
+		OBJECT(StringHeap.REF_SIZE);
+
+		final int width;
+
+		private Kind(final int width) {
+			this.width = width;
+		}
+	}
+
+	/**
+	 * Storage of a field within rows
+	 */
+	private static final class Slot {
+
+		final int index;
+		final String name;
+		final Kind kind;
+		final ValueConverter<?> converter;
+		final BiConsumer<Object, Object> valueSetter;
+		int offset;
+
+		Slot(final int index, final RichField richField) {
+			Field field = richField.getField();
+			Class<?> type = field.getType();
+			this.index = index;
+			this.name = field.getName();
+			this.valueSetter = richField.getObjectSetter();
+			this.kind = kindOf(type);
+			this.converter = kind == Kind.OBJECT ? ValueConverters
+					.converterFor(type) : null;
+		}
+
+		private Kind kindOf(final Class<?> type) {
+			if (ValueConverters.registered(type) != null) {
+				return Kind.OBJECT;
+			}
+			if (type == int.class) {
+				return Kind.INT;
+			}
+			if (type == long.class) {
+				return Kind.LONG;
+			}
+			if (type == double.class) {
+				return Kind.DOUBLE;
+			}
+			if (type == boolean.class) {
+				return Kind.BOOLEAN;
+			}
+			return type == String.class ? Kind.STRING : Kind.OBJECT;
+		}
+
+		void write(final ByteBuffer buffer, final int offset,
+				final CharSequence line, final int start, final int end,
+				final StringHeap strings) {
+			switch (kind) {
+			case INT:
+				buffer.putInt(offset, Numbers.parseInt(line, start, end));
+				break;
+			case LONG:
+				buffer.putLong(offset, Numbers.parseLong(line, start, end));
+				break;
+			case DOUBLE:
+				buffer.putDouble(offset, Numbers.parseDouble(line, start, end));
+				break;
+			case BOOLEAN:
+				buffer.put(offset, (byte) (Numbers.parseBoolean(line, start,
+						end) ? 1 : 0));
+				break;
+			default:
+				strings.put(buffer, offset, line, start, end);
+			}
+		}
+	}
+
+	/**
+	 * Off-heap storage of strings. A string is referenced from its slot by
+	 * its segment, position and length, whose sign tells whether it is
+	 * stored as Latin-1 (one byte per char) or UTF-16.
+	 */
+	private static final class StringHeap {
+
+		static final int REF_SIZE = 12;
+
+		private final int maxSegmentSize;
+		private final List<ByteBuffer> segments = new ArrayList<>();
+		private ByteBuffer current;
+		// the size of the next segment, doubling up to the maximum size
+		private int segmentSize;
+
+		StringHeap(final int initialSegmentSize, final int maxSegmentSize) {
+			this.segmentSize = initialSegmentSize;
+			this.maxSegmentSize = maxSegmentSize;
+		}
+
+		void put(final ByteBuffer slots, final int offset,
+				final CharSequence s, final int start, final int end) {
+			int length = end - start;
+			boolean latin1 = true;
+			for (int i = start; i < end && latin1; i++) {
+				latin1 = s.charAt(i) < 256;
+			}
+			int bytes = latin1 ? length : 2 * length;
+			if (current == null || current.remaining() < bytes) {
+				current = ByteBuffer.allocateDirect(Math.max(segmentSize,
+						bytes));
+				segments.add(current);
+				segmentSize = Math.min(maxSegmentSize, 2 * segmentSize);
+			}
+			slots.putInt(offset, segments.size() - 1);
+			slots.putInt(offset + 4, current.position());
+			slots.putInt(offset + 8, latin1 ? length : -length - 1);
+			for (int i = start; i < end; i++) {
+				if (latin1) {
+					current.put((byte) s.charAt(i));
+				} else {
+					current.putChar(s.charAt(i));
+				}
+			}
+		}
+
+		String get(final ByteBuffer slots, final int offset) {
+			ByteBuffer segment = segments.get(slots.getInt(offset));
+			int position = slots.getInt(offset + 4);
+			int length = slots.getInt(offset + 8);
+			boolean latin1 = length >= 0;
+			if (!latin1) {
+				length = -length - 1;
+			}
+			char[] chars = new char[length];
+			for (int i = 0; i < length; i++) {
+				chars[i] = latin1 ? (char) (segment.get(position + i) & 0xff)
+						: segment.getChar(position + 2 * i);
+			}
+			return new String(chars);
+		}
+	}
+}
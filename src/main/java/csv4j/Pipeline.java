@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import csv4j.io.RecordCursor;
+
+/**
+ * Runs the stages of hydration on separate threads: a reader thread reads
+ * records into batches and a pool of workers turns batches into objects,
+ * while the caller consumes them. Reading, parsing and binding overlap, so a
+ * single input can keep both its storage and several cores busy.
+ * 
+ * Tokenizing and binding are a single worker stage rather than two: cells
+ * are bounds into a record, reused per thread, so handing them to another
+ * stage would mean materializing every cell, which costs more than
+ * tokenizing does. The cost of the merged stage is that a batch is
+ * tokenized and bound by the same worker, so it only scales with the number
+ * of workers, not the number of stages. Records are copied by the reader as
+ * they are read (see {@link RecordCursor#copyRecord()}): records read on raw
+ * bytes stay bytes, so the workers, not the reader, decode the cells that
+ * need it and parse numbers straight from the bytes.
+ * 
+ * Batches are queued for the caller in the order they are read, along with
+ * the future of their objects, so the output keeps the input order whatever
+ * the order workers finish in. The queue is bounded: the reader waits for the
+ * caller when it gets too far ahead.
+ * 
+ * Failures of the reader or the workers are rethrown to the caller when it
+ * reaches the failed batch. Closing the pipeline, or reaching its end, stops
+ * its threads and closes the records.
+ * 
+ * @author Yannis Theocharis
+ *
+ * @param <T>
+ *            type of the objects the records are turned into
+ */
+final class Pipeline<T> implements AutoCloseable {
+
+	static final int BATCH_SIZE = 1024;
+	private static final int BATCHES_PER_WORKER = 2;
+	private static final ThreadFactory THREADS = new ThreadFactoryBuilder()
+			.setDaemon(true).setNameFormat("csv4j-pipeline-%d").build();
+
+	private final CompletableFuture<List<T>> end = CompletableFuture
+			.completedFuture(null);
+	private final BlockingQueue<CompletableFuture<List<T>>> batches;
+	private final ExecutorService pool;
+	private final Thread reader;
+	private volatile boolean closed;
+
+	/**
+	 * Starts reading the records
+	 * 
+	 * @param records
+	 *            the records to read, closed along with the pipeline
+	 * @param workers
+	 *            the number of worker threads
+	 * @param batchSize
+	 *            the number of records per batch
+	 * @param stage
+	 *            function turning a batch of records into objects, run by
+	 *            the workers
+	 */
+	Pipeline(final RecordCursor records, final int workers,
+			final int batchSize,
+			final Function<List<CharSequence>, List<T>> stage) {
+		this.batches = new ArrayBlockingQueue<>(BATCHES_PER_WORKER * workers);
+		this.pool = Executors.newFixedThreadPool(workers, THREADS);
+		this.reader = THREADS.newThread(() -> read(records, batchSize, stage));
+		reader.start();
+	}
+
+	private void read(final RecordCursor records, final int batchSize,
+			final Function<List<CharSequence>, List<T>> stage) {
+		try {
+			try (RecordCursor cursor = records) {
+				List<CharSequence> batch = new ArrayList<>(batchSize);
+				while (!closed && cursor.next()) {
+					// records may be views, valid until the next one
+					batch.add(cursor.copyRecord());
+					if (batch.size() == batchSize) {
+						submit(batch, stage);
+						batch = new ArrayList<>(batchSize);
+					}
+				}
+				if (!batch.isEmpty()) {
+					submit(batch, stage);
+				}
+				batches.put(end);
+			} catch (RuntimeException e) {
+				CompletableFuture<List<T>> failure = new CompletableFuture<>();
+				failure.completeExceptionally(e);
+				batches.put(failure);
+			}
+		} catch (InterruptedException e) {
+			// closed by the caller
+		}
+	}
+
+	private void submit(final List<CharSequence> batch,
+			final Function<List<CharSequence>, List<T>> stage)
+			throws InterruptedException {
+		batches.put(CompletableFuture.supplyAsync(() -> stage.apply(batch),
+				pool));
+	}
+
+	/**
+	 * Waits for the objects of the next batch
+	 * 
+	 * @return the objects of the next batch, or null at the end of the records
+	 */
+	List<T> next() {
+		if (closed) {
+			return null;
+		}
+		CompletableFuture<List<T>> batch;
+		try {
+			batch = batches.take();
+		} catch (InterruptedException e) {
+			close();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		if (batch == end) {
+			close();
+			return null;
+		}
+		try {
+			return batch.join();
+		} catch (CompletionException e) {
+			close();
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+
+	/**
+	 * @return the objects of all batches, in order, as a stream that closes
+	 *         this pipeline when closed
+	 */
+	Stream<T> stream() {
+		Spliterator<T> objects = new Spliterators.AbstractSpliterator<T>(
+				Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+			private Iterator<T> batch = Collections.emptyIterator();
+
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				while (!batch.hasNext()) {
+					List<T> next = next();
+					if (next == null) {
+						return false;
+					}
+					batch = next.iterator();
+				}
+				action.accept(batch.next());
+				return true;
+			}
+		};
+		return StreamSupport.stream(objects, false).onClose(this::close);
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		reader.interrupt();
+		pool.shutdownNow();
+		batches.clear();
+		// wakes up a caller waiting for the next batch
+		batches.offer(end);
+	}
+}
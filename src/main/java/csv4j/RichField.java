@@ -18,26 +18,39 @@ package csv4j;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
 
 import com.google.common.base.Preconditions;
-import com.google.common.primitives.Primitives;
+
+import csv4j.Setters.ObjBooleanConsumer;
+import csv4j.annotations.CsvDedup;
+import csv4j.parse.Numbers;
 
 /**
  * Wraps a field of the domain type along with the setter method for this field.
+ * The setter is compiled once, when the field is wrapped, so that setting
+ * values does not go through reflection.
  * 
  * @author Yannis Theocharis
  */
 class RichField {
 
 	private static final String SET = "set";
-	private static final String VALUE_OF = "valueOf";
 
 	private final Field field;
 	private final Method setter;
+	private final BiConsumer<Object, Object> objectSetter;
+	private final FieldSetter fieldSetter;
 
 	private RichField(Field field, Method setter) {
 		this.field = field;
 		this.setter = setter;
+		this.objectSetter = Setters.of(setter);
+		this.fieldSetter = compile(setter, objectSetter, field);
 	}
 
 	/**
@@ -59,6 +72,55 @@ class RichField {
 		return new RichField(field, method);
 	}
 
+	/**
+	 * Compiles the setter into a function that maps a slice of a csv line to
+	 * field's type and sets it. Unless a custom converter is registered for
+	 * them, int, long, double and boolean values are parsed straight from the
+	 * line and set as primitives, without any intermediate String or boxing.
+	 * String fields annotated with {@link CsvDedup} share repeated values
+	 * through the {@link StringDedup} cache of the field.
+	 */
+	private static FieldSetter compile(final Method setter,
+			final BiConsumer<Object, Object> objectSetter, final Field field) {
+		Class<?> fieldType = field.getType();
+		boolean builtIn = ValueConverters.registered(fieldType) == null;
+		if (builtIn && fieldType == int.class) {
+			ObjIntConsumer<Object> intSetter = Setters.ofInt(setter);
+			return (object, line, start, end) -> intSetter.accept(object,
+					Numbers.parseInt(line, start, end));
+		}
+		if (builtIn && fieldType == long.class) {
+			ObjLongConsumer<Object> longSetter = Setters.ofLong(setter);
+			return (object, line, start, end) -> longSetter.accept(object,
+					Numbers.parseLong(line, start, end));
+		}
+		if (builtIn && fieldType == double.class) {
+			ObjDoubleConsumer<Object> doubleSetter = Setters.ofDouble(setter);
+			return (object, line, start, end) -> doubleSetter.accept(object,
+					Numbers.parseDouble(line, start, end));
+		}
+		if (builtIn && fieldType == boolean.class) {
+			ObjBooleanConsumer<Object> booleanSetter = Setters
+					.ofBoolean(setter);
+			return (object, line, start, end) -> booleanSetter.accept(object,
+					Numbers.parseBoolean(line, start, end));
+		}
+		CsvDedup dedup = field.getAnnotation(CsvDedup.class);
+		if (builtIn && fieldType == String.class && dedup != null) {
+			StringDedup cache = StringDedup.of(field.getDeclaringClass(),
+					field.getName(), dedup.value());
+			return (object, line, start, end) -> objectSetter.accept(object,
+					cache.get(line, start, end));
+		}
+		if (builtIn && fieldType == String.class) {
+			return (object, line, start, end) -> objectSetter.accept(object,
+					line.subSequence(start, end).toString());
+		}
+		ValueConverter<?> converter = ValueConverters.converterFor(fieldType);
+		return (object, line, start, end) -> objectSetter.accept(object,
+				converter.convert(line.subSequence(start, end).toString()));
+	}
+
 	private static String setterName(String fieldName) {
 		StringBuilder sb = new StringBuilder(SET);
 		sb.append(fieldName.substring(0, 1).toUpperCase());
@@ -75,9 +137,10 @@ class RichField {
 	}
 
 	/**
-	 * Sets value to object's field. Uses reflection to call the setter of the
-	 * field on the object. The value to be set, is first mapped from String to
-	 * field's type, by invoking "valueOf" method of field's type.
+	 * Sets value to object's field, by calling the compiled setter of the field
+	 * on the object. The value to be set, is first mapped from String to
+	 * field's type, by the converter resolved for field's type (see
+	 * {@link ValueConverters}).
 	 * 
 	 * @param object
 	 *            the object on which the setter is invoked
@@ -85,18 +148,34 @@ class RichField {
 	 *            the value to set in string serialisation
 	 */
 	<T> void setField(final T object, final String value) {
-		Object typedValue = valueOfType(value, field.getType());
-		Sane.invokeMethod(setter, object, typedValue);
+		fieldSetter.set(object, value, 0, value.length());
 	}
 
-	private Object valueOfType(final String value, final Class<?> fieldType) {
-		if (fieldType == String.class) {
-			return value;
+	/**
+	 * @param template
+	 *            object holding the value of the field
+	 * @return function setting the value the field has on the template
+	 */
+	Consumer<Object> restorerOf(final Object template) {
+		final Object value;
+		try {
+			field.setAccessible(true);
+			value = field.get(template);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
 		}
-		Class<?> possiblyWrappedFieldType = fieldType.isPrimitive() ? Primitives
-				.wrap(fieldType) : fieldType;
-		Method valueOf = Sane.declaredMethod(possiblyWrappedFieldType,
-				VALUE_OF, String.class);
-		return Sane.invokeMethod(valueOf, value);
+		return object -> objectSetter.accept(object, value);
+	}
+
+	FieldSetter getFieldSetter() {
+		return fieldSetter;
+	}
+
+	/**
+	 * @return the compiled setter of the field, taking values of its type
+	 *         (boxed if primitive)
+	 */
+	BiConsumer<Object, Object> getObjectSetter() {
+		return objectSetter;
 	}
 }
\ No newline at end of file
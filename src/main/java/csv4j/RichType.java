@@ -17,9 +17,13 @@
 package csv4j;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import com.google.common.base.Preconditions;
@@ -30,23 +34,49 @@ import csv4j.annotations.CsvFields;
  * Wrapps domain type along with two maps: "java field name" => RichField and
  * "csv file name" => "java field name"
  * 
+ * Rich types are immutable and cached per domain type, in a {@link ClassValue}
+ * so that they do not keep the class loaders of domain types alive. A cached
+ * rich type is recompiled if custom converters have been (un)registered since
+ * (see {@link ValueConverters}).
+ * 
  * 
  * @author Yannis Theocharis
  */
-class RichType<T> {
+class RichType<T> implements HydrationPlan<T> {
+
+	private static final ClassValue<RichType<?>> CACHE = new ClassValue<RichType<?>>() {
+		@Override
+		protected RichType<?> computeValue(Class<?> type) {
+			return new RichType<>(type);
+		}
+	};
 
 	private final Class<T> type;
+	private final int converters;
+	private final Supplier<T> constructor;
 	private final Map<String, RichField> jfieldNameToRichField;
 	private final Map<String, String> csvfieldToJfield;
+	private final BindingCache bindings = new BindingCache(
+			csvFields -> ColumnBinding.of(richFieldsOf(csvFields)));
 
 	private RichType(Class<T> type) {
 		this.type = type;
+		// read before compiling the setters, a concurrent registration
+		// leaves this rich type stale
+		this.converters = ValueConverters.version();
+		this.constructor = Constructors.of(type);
 		jfieldNameToRichField = jfieldNameToRichField();
 		csvfieldToJfield = csvfieldToJfield();
 	}
 
+	@SuppressWarnings("unchecked")
 	static <U> RichType<U> of(Class<U> type) {
-		return new RichType<U>(type);
+		RichType<?> richType = CACHE.get(type);
+		if (richType.converters != ValueConverters.version()) {
+			CACHE.remove(type);
+			richType = CACHE.get(type);
+		}
+		return (RichType<U>) richType;
 	}
 
 	private Map<String, RichField> jfieldNameToRichField() {
@@ -78,6 +108,27 @@ class RichType<T> {
 		return type;
 	}
 
+	@Override
+	public T newInstance() {
+		return constructor.get();
+	}
+
+	@Override
+	public ColumnBinding bind(final String[] csvFields) {
+		return bindings.get(csvFields);
+	}
+
+	@Override
+	public RowBinder resetter(final String[] csvFields, final T template) {
+		RichField[] richFields = richFieldsOf(csvFields);
+		List<Consumer<Object>> restorers = new ArrayList<>();
+		for (RichField richField : richFields) {
+			restorers.add(richField == null ? null : richField
+					.restorerOf(template));
+		}
+		return RowBinders.resetting(restorers);
+	}
+
 	/**
 	 * Returns the rich field (java field) that the specified csv field maps to.
 	 * If there is no annotation containing the specified csv field, it is
@@ -92,4 +143,21 @@ class RichType<T> {
 		return jfield == null ? jfieldNameToRichField.get(csvfield)
 				: jfieldNameToRichField.get(jfield);
 	}
+
+	/**
+	 * Resolves csv fields (e.g. the header of a csv file) into the rich fields
+	 * they map to, so that lines are hydrated by column index, without any
+	 * lookups.
+	 * 
+	 * @param csvfields
+	 * @return the associated rich fields, indexed as the csv fields, or null
+	 *         for csv fields that do not map to any java field
+	 */
+	RichField[] richFieldsOf(String[] csvfields) {
+		RichField[] richFields = new RichField[csvfields.length];
+		for (int i = 0; i < csvfields.length; i++) {
+			richFields[i] = richFieldOf(csvfields[i]);
+		}
+		return richFields;
+	}
 }
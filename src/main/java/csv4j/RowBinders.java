@@ -0,0 +1,358 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Generates row binders at runtime. The generated binder of a header is a
+ * straight-line sequence of calls, one per bound column, to the setter of
+ * the column:
+ * 
+ * <pre>
+ * setters[0].set(object, cells, 0);
+ * setters[3].set(object, cells, 3);
+ * ...
+ * </pre>
+ * 
+ * Each column gets a call site of its own, which the JIT sees calling a
+ * single setter and inlines, whereas a loop over the columns dispatches all
+ * setters through one megamorphic call site.
+ * 
+ * Binders are defined as hidden classes (or plain classes, before java 15)
+ * in csv4j's package. Where classes cannot be defined at runtime (java 8)
+ * or too many columns are bound (the JIT does not compile huge methods), rows
+ * are bound by looping over the columns.
+ * 
+ * @author Yannis Theocharis
+ */
+final class RowBinders {
+
+	// up to ~15 bytes of code per column, below the 8000 bytes of huge methods
+	private static final int MAX_BOUND_COLUMNS = 256;
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final String NAME = "csv4j/RowBinder$";
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	// byte[] => Class<?>, or null if classes cannot be defined at runtime
+	private static volatile MethodHandle define = define();
+
+	private RowBinders() {
+	}
+
+	/**
+	 * Generates the binder of the given setters. Generated classes may never
+	 * be unloaded (before java 15), callers cache the binders they generate.
+	 * 
+	 * @param setters
+	 *            the setters of the columns, null for unbound columns
+	 * @return binder setting every bound column
+	 */
+	static RowBinder of(final FieldSetter[] setters) {
+		MethodHandle define = RowBinders.define;
+		if (define == null || setters.length > Short.MAX_VALUE
+				|| bound(setters) > MAX_BOUND_COLUMNS) {
+			return looping(setters);
+		}
+		Class<?> binder;
+		try {
+			binder = (Class<?>) define.invokeExact(generate(
+					NAME + SEQUENCE.incrementAndGet(), setters));
+		} catch (IllegalAccessException | SecurityException e) {
+			// e.g. a security manager, stop trying
+			RowBinders.define = null;
+			return looping(setters);
+		} catch (RuntimeException | Error e) {
+			// a bug of the generated class, e.g. a VerifyError
+			throw e;
+		} catch (Throwable t) {
+			throw new RuntimeException(t);
+		}
+		try {
+			return (RowBinder) binder.getConstructor(FieldSetter[].class)
+					.newInstance((Object) setters.clone());
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static RowBinder looping(final FieldSetter[] setters) {
+		final FieldSetter[] copy = setters.clone();
+		return (object, cells) -> {
+			for (int i = 0; i < copy.length; i++) {
+				FieldSetter setter = copy[i];
+				// ignore csv fields not matching any domain object field
+				if (setter != null) {
+					setter.set(object, cells, i);
+				}
+			}
+		};
+	}
+
+	/**
+	 * @param restorers
+	 *            the restorers of the fields of the columns, null for unbound
+	 *            columns
+	 * @return binder restoring the fields of empty cells
+	 */
+	static RowBinder resetting(final List<Consumer<Object>> restorers) {
+		final List<Consumer<Object>> copy = new ArrayList<>(restorers);
+		return (object, cells) -> {
+			for (int i = 0; i < copy.size(); i++) {
+				Consumer<Object> restorer = copy.get(i);
+				if (restorer != null && cells.isEmpty(i)) {
+					restorer.accept(object);
+				}
+			}
+		};
+	}
+
+	static boolean isGenerated(final RowBinder binder) {
+		return binder.getClass().getName().startsWith(NAME.replace('/', '.'));
+	}
+
+	private static int bound(final FieldSetter[] setters) {
+		int bound = 0;
+		for (FieldSetter setter : setters) {
+			if (setter != null) {
+				bound++;
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * Resolves Lookup.defineHiddenClass (java 15+) or Lookup.defineClass
+	 * (java 9+) reflectively, as csv4j is compiled for java 8
+	 */
+	private static MethodHandle define() {
+		MethodType defined = MethodType.methodType(Class.class, byte[].class);
+		try {
+			Class<?> option = Class
+					.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+			MethodHandle hidden = LOOKUP.findVirtual(
+					MethodHandles.Lookup.class,
+					"defineHiddenClass",
+					MethodType.methodType(MethodHandles.Lookup.class,
+							byte[].class, boolean.class, Array.newInstance(
+									option, 0).getClass()));
+			hidden = MethodHandles.insertArguments(hidden, 0, LOOKUP);
+			hidden = MethodHandles.insertArguments(hidden, 1, true,
+					Array.newInstance(option, 0));
+			return MethodHandles.filterReturnValue(
+					hidden,
+					LOOKUP.findVirtual(MethodHandles.Lookup.class,
+							"lookupClass", MethodType.methodType(Class.class)))
+					.asType(defined);
+		} catch (ReflectiveOperationException e) {
+			// before java 15
+		}
+		try {
+			return LOOKUP.findVirtual(MethodHandles.Lookup.class,
+					"defineClass", defined).bindTo(LOOKUP);
+		} catch (ReflectiveOperationException e) {
+			// java 8
+			return null;
+		}
+	}
+
+	// constant pool of the generated binders
+	private static final int THIS_CLASS = 2;
+	private static final int OBJECT_CLASS = 4;
+	private static final int BINDER_CLASS = 6;
+	private static final int SETTERS_NAME = 7;
+	private static final int SETTERS_DESCRIPTOR = 8;
+	private static final int SETTERS_FIELD = 10;
+	private static final int OBJECT_INIT = 14;
+	private static final int INIT_NAME = 11;
+	private static final int INIT_DESCRIPTOR = 15;
+	private static final int SETTER_SET = 21;
+	private static final int BIND_NAME = 22;
+	private static final int BIND_DESCRIPTOR = 23;
+	private static final int CODE = 24;
+	private static final int CONSTANTS = 25;
+
+	private static final int UTF8 = 1;
+	private static final int CLASS = 7;
+	private static final int FIELD_REF = 9;
+	private static final int METHOD_REF = 10;
+	private static final int INTERFACE_METHOD_REF = 11;
+	private static final int NAME_AND_TYPE = 12;
+
+	/**
+	 * Generates the class file of the binder of the given setters:
+	 * 
+	 * <pre>
+	 * final class RowBinder$n implements RowBinder {
+	 * 	private final FieldSetter[] setters;
+	 * 
+	 * 	public RowBinder$n(FieldSetter[] setters) {
+	 * 		this.setters = setters;
+	 * 	}
+	 * 
+	 * 	public void bind(Object object, Cells cells) {
+	 * 		FieldSetter[] setters = this.setters;
+	 * 		setters[i].set(object, cells, i); // for every bound column i
+	 * 	}
+	 * }
+	 * </pre>
+	 * 
+	 * The code has no branches, hence it needs no stack map frames.
+	 */
+	static byte[] generate(final String name, final FieldSetter[] setters)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(52);
+
+		out.writeShort(CONSTANTS);
+		utf8(out, name); // 1
+		ref(out, CLASS, 1); // 2
+		utf8(out, "java/lang/Object"); // 3
+		ref(out, CLASS, 3); // 4
+		utf8(out, "csv4j/RowBinder"); // 5
+		ref(out, CLASS, 5); // 6
+		utf8(out, "setters"); // 7
+		utf8(out, "[Lcsv4j/FieldSetter;"); // 8
+		ref(out, NAME_AND_TYPE, SETTERS_NAME, SETTERS_DESCRIPTOR); // 9
+		ref(out, FIELD_REF, THIS_CLASS, 9); // 10
+		utf8(out, "<init>"); // 11
+		utf8(out, "()V"); // 12
+		ref(out, NAME_AND_TYPE, INIT_NAME, 12); // 13
+		ref(out, METHOD_REF, OBJECT_CLASS, 13); // 14
+		utf8(out, "([Lcsv4j/FieldSetter;)V"); // 15
+		utf8(out, "csv4j/FieldSetter"); // 16
+		ref(out, CLASS, 16); // 17
+		utf8(out, "set"); // 18
+		utf8(out, "(Ljava/lang/Object;Lcsv4j/parse/Cells;I)V"); // 19
+		ref(out, NAME_AND_TYPE, 18, 19); // 20
+		ref(out, INTERFACE_METHOD_REF, 17, 20); // 21
+		utf8(out, "bind"); // 22
+		utf8(out, "(Ljava/lang/Object;Lcsv4j/parse/Cells;)V"); // 23
+		utf8(out, "Code"); // 24
+
+		out.writeShort(0x0030); // final super
+		out.writeShort(THIS_CLASS);
+		out.writeShort(OBJECT_CLASS);
+		out.writeShort(1);
+		out.writeShort(BINDER_CLASS);
+
+		out.writeShort(1);
+		out.writeShort(0x0012); // private final
+		out.writeShort(SETTERS_NAME);
+		out.writeShort(SETTERS_DESCRIPTOR);
+		out.writeShort(0);
+
+		out.writeShort(2);
+		ByteArrayOutputStream init = new ByteArrayOutputStream();
+		init.write(0x2a); // aload_0
+		init.write(0xb7); // invokespecial Object.<init>
+		init.write(OBJECT_INIT >> 8);
+		init.write(OBJECT_INIT);
+		init.write(0x2a); // aload_0
+		init.write(0x2b); // aload_1
+		init.write(0xb5); // putfield setters
+		init.write(SETTERS_FIELD >> 8);
+		init.write(SETTERS_FIELD);
+		init.write(0xb1); // return
+		method(out, INIT_NAME, INIT_DESCRIPTOR, 2, 2, init.toByteArray());
+
+		ByteArrayOutputStream bind = new ByteArrayOutputStream();
+		bind.write(0x2a); // aload_0
+		bind.write(0xb4); // getfield setters
+		bind.write(SETTERS_FIELD >> 8);
+		bind.write(SETTERS_FIELD);
+		bind.write(0x4e); // astore_3
+		for (int i = 0; i < setters.length; i++) {
+			if (setters[i] != null) {
+				bind.write(0x2d); // aload_3
+				push(bind, i);
+				bind.write(0x32); // aaload
+				bind.write(0x2b); // aload_1
+				bind.write(0x2c); // aload_2
+				push(bind, i);
+				bind.write(0xb9); // invokeinterface FieldSetter.set
+				bind.write(SETTER_SET >> 8);
+				bind.write(SETTER_SET);
+				bind.write(4);
+				bind.write(0);
+			}
+		}
+		bind.write(0xb1); // return
+		method(out, BIND_NAME, BIND_DESCRIPTOR, 4, 4, bind.toByteArray());
+
+		out.writeShort(0);
+		return bytes.toByteArray();
+	}
+
+	private static void utf8(final DataOutputStream out, final String value)
+			throws IOException {
+		out.writeByte(UTF8);
+		out.writeUTF(value);
+	}
+
+	private static void ref(final DataOutputStream out, final int tag,
+			final int... indexes) throws IOException {
+		out.writeByte(tag);
+		for (int index : indexes) {
+			out.writeShort(index);
+		}
+	}
+
+	private static void push(final ByteArrayOutputStream code, final int i) {
+		if (i <= 5) {
+			code.write(0x03 + i); // iconst_i
+		} else if (i <= Byte.MAX_VALUE) {
+			code.write(0x10); // bipush
+			code.write(i);
+		} else {
+			code.write(0x11); // sipush
+			code.write(i >> 8);
+			code.write(i);
+		}
+	}
+
+	private static void method(final DataOutputStream out, final int name,
+			final int descriptor, final int maxStack, final int maxLocals,
+			final byte[] code) throws IOException {
+		out.writeShort(0x0001); // public
+		out.writeShort(name);
+		out.writeShort(descriptor);
+		out.writeShort(1);
+		out.writeShort(CODE);
+		out.writeInt(12 + code.length);
+		out.writeShort(maxStack);
+		out.writeShort(maxLocals);
+		out.writeInt(code.length);
+		out.write(code);
+		out.writeShort(0); // exception table
+		out.writeShort(0); // attributes
+	}
+}
@@ -33,24 +33,4 @@ class Sane {
 			throw new RuntimeException(e);
 		}
 	}
-
-	static <T> T newInstance(Class<T> type) {
-		try {
-			return type.newInstance();
-		} catch (Exception e) {
-			throw new RuntimeException(e);
-		}
-	}
-
-	static Object invokeMethod(Method method, String value) {
-		return invokeMethod(method, null, value);
-	}
-
-	static <T, U> Object invokeMethod(Method method, T object, U value) {
-		try {
-			return method.invoke(object, value);
-		} catch (Exception e) {
-			throw new RuntimeException(e);
-		}
-	}
 }
@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Compiles setter methods into functional interfaces, so that hydration calls
+ * setters (almost) as fast as direct calls, instead of going through
+ * Method.invoke. Setters of int, long and double fields are compiled into
+ * primitive consumers, so their values are never boxed.
+ * 
+ * Same for boolean fields, for which java.util.function lacks a consumer.
+ * 
+ * Setters are spun with LambdaMetafactory whenever csv4j can link against the
+ * domain type directly (public setter of a public type visible from csv4j's
+ * class loader). Otherwise they fall back to method handles.
+ * 
+ * @author Yannis Theocharis
+ */
+class Setters {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final String ACCEPT = "accept";
+	private static final MethodType GENERIC = MethodType.methodType(
+			void.class, Object.class, Object.class);
+
+	private Setters() {
+	}
+
+	static BiConsumer<Object, Object> of(final Method setter) {
+		Class<?> valueType = setter.getParameterTypes()[0];
+		if (isLinkable(setter)) {
+			Class<?> boxedType = MethodType.methodType(valueType).wrap()
+					.returnType();
+			return spin(setter, BiConsumer.class, GENERIC, MethodType
+					.methodType(void.class, setter.getDeclaringClass(),
+							boxedType));
+		}
+		MethodHandle mh = handle(setter).asType(GENERIC);
+		return (object, value) -> {
+			try {
+				mh.invokeExact(object, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		};
+	}
+
+	static ObjIntConsumer<Object> ofInt(final Method setter) {
+		MethodType type = MethodType.methodType(void.class, Object.class,
+				int.class);
+		if (isLinkable(setter)) {
+			return spin(setter, ObjIntConsumer.class, type,
+					type.changeParameterType(0, setter.getDeclaringClass()));
+		}
+		MethodHandle mh = handle(setter).asType(type);
+		return (object, value) -> {
+			try {
+				mh.invokeExact(object, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		};
+	}
+
+	static ObjLongConsumer<Object> ofLong(final Method setter) {
+		MethodType type = MethodType.methodType(void.class, Object.class,
+				long.class);
+		if (isLinkable(setter)) {
+			return spin(setter, ObjLongConsumer.class, type,
+					type.changeParameterType(0, setter.getDeclaringClass()));
+		}
+		MethodHandle mh = handle(setter).asType(type);
+		return (object, value) -> {
+			try {
+				mh.invokeExact(object, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		};
+	}
+
+	static ObjDoubleConsumer<Object> ofDouble(final Method setter) {
+		MethodType type = MethodType.methodType(void.class, Object.class,
+				double.class);
+		if (isLinkable(setter)) {
+			return spin(setter, ObjDoubleConsumer.class, type,
+					type.changeParameterType(0, setter.getDeclaringClass()));
+		}
+		MethodHandle mh = handle(setter).asType(type);
+		return (object, value) -> {
+			try {
+				mh.invokeExact(object, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		};
+	}
+
+	static ObjBooleanConsumer<Object> ofBoolean(final Method setter) {
+		MethodType type = MethodType.methodType(void.class, Object.class,
+				boolean.class);
+		if (isLinkable(setter)) {
+			return spin(setter, ObjBooleanConsumer.class, type,
+					type.changeParameterType(0, setter.getDeclaringClass()));
+		}
+		MethodHandle mh = handle(setter).asType(type);
+		return (object, value) -> {
+			try {
+				mh.invokeExact(object, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <F> F spin(final Method setter, final Class<?> samType,
+			final MethodType erasedType, final MethodType instantiatedType) {
+		try {
+			CallSite site = LambdaMetafactory.metafactory(LOOKUP, ACCEPT,
+					MethodType.methodType(samType), erasedType,
+					LOOKUP.unreflect(setter), instantiatedType);
+			return (F) site.getTarget().invoke();
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	private static MethodHandle handle(final Method setter) {
+		try {
+			setter.setAccessible(true);
+			return LOOKUP.unreflect(setter);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Lambdas are linked from csv4j's class loader and access context, so the
+	 * setter has to be reachable from there.
+	 */
+	private static boolean isLinkable(final Method setter) {
+		Class<?> type = setter.getDeclaringClass();
+		return Modifier.isPublic(setter.getModifiers()) && isPublic(type)
+				&& isVisible(type)
+				&& isVisible(setter.getParameterTypes()[0]);
+	}
+
+	static boolean isPublic(final Class<?> type) {
+		for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+			if (!Modifier.isPublic(c.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static boolean isVisible(final Class<?> type) {
+		if (type.isPrimitive()) {
+			return true;
+		}
+		try {
+			return Class.forName(type.getName(), false,
+					Setters.class.getClassLoader()) == type;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	static RuntimeException rethrow(final Throwable t) {
+		if (t instanceof RuntimeException) {
+			return (RuntimeException) t;
+		}
+		if (t instanceof Error) {
+			throw (Error) t;
+		}
+		return new RuntimeException(t);
+	}
+
+	@FunctionalInterface
+	interface ObjBooleanConsumer<T> {
+		void accept(T t, boolean value);
+	}
+}
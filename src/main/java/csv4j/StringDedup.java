@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+
+import csv4j.parse.Cells;
+
+/**
+ * Deduplicates the values of a String field (see
+ * {@link csv4j.annotations.CsvDedup}). Slices of csv lines are looked up in a
+ * bounded cache without being materialized, so a repeated value costs a hash
+ * and a comparison instead of a new String. Lines may be views over encoded
+ * bytes though: non-ASCII slices of those are decoded before their lookup,
+ * their repeated values are shared but still allocated.
+ * 
+ * The cache is direct-mapped: a value evicts the value cached in its slot.
+ * Columns with too many distinct values defeat any bounded cache, so the
+ * cache disables itself if the hit rate of its first lookups is below
+ * {@link #MIN_HIT_RATE}, after which values are allocated as usual.
+ * 
+ * Caches are shared by all hydrators of a domain type, one per field, and
+ * are thread-safe: concurrent updates may lose entries, not values.
+ * 
+ * @author Yannis Theocharis
+ */
+public final class StringDedup {
+
+	/**
+	 * Caches whose hit rate is below this after their warm-up are disabled
+	 */
+	public static final double MIN_HIT_RATE = 0.5;
+
+	private static final int MIN_WARM_UP = 1024;
+
+	private static final ClassValue<ConcurrentMap<String, StringDedup>> CACHES = new ClassValue<ConcurrentMap<String, StringDedup>>() {
+		@Override
+		protected ConcurrentMap<String, StringDedup> computeValue(
+				Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private final String[] entries;
+	private final long warmUp;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	// misses since the hit rate was last checked, a plain field as lost
+	// updates only delay the next check
+	private int unchecked;
+	private volatile boolean disabled;
+
+	private StringDedup(final int size) {
+		int slots = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+		this.entries = new String[slots];
+		this.warmUp = Math.max(MIN_WARM_UP, 4L * entries.length);
+	}
+
+	/**
+	 * Returns the cache of a String field, creating it on first use
+	 * 
+	 * @param type
+	 *            the domain type
+	 * @param field
+	 *            the name of the field
+	 * @param size
+	 *            the number of distinct values to cache, rounded up to a
+	 *            power of 2
+	 * @return the cache of the field
+	 */
+	public static StringDedup of(final Class<?> type, final String field,
+			final int size) {
+		Preconditions.checkNotNull(type);
+		Preconditions.checkNotNull(field);
+		Preconditions.checkArgument(size > 0, "size must be positive");
+		return CACHES.get(type).computeIfAbsent(field,
+				f -> new StringDedup(size));
+	}
+
+	/**
+	 * @return the caches of the String fields of a domain type, by field name
+	 */
+	static Map<String, StringDedup> of(final Class<?> type) {
+		return Collections.unmodifiableMap(new TreeMap<>(CACHES.get(type)));
+	}
+
+	/**
+	 * @return the value of a slice of a csv line, shared with previous equal
+	 *         values if cached
+	 */
+	public String get(final CharSequence line, final int start, final int end) {
+		if (disabled) {
+			return line.subSequence(start, end).toString();
+		}
+		if (!Cells.isDecoded(line, start, end)) {
+			// the encoded bytes of non-ASCII chars never equal the cached
+			// values, which are decoded
+			String value = line.subSequence(start, end).toString();
+			return get(value, 0, value.length());
+		}
+		int h = 0;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + line.charAt(i);
+		}
+		int slot = (h ^ h >>> 16) & (entries.length - 1);
+		String entry = entries[slot];
+		if (entry != null && equals(entry, line, start, end)) {
+			hits.increment();
+			return entry;
+		}
+		misses.increment();
+		entry = line.subSequence(start, end).toString();
+		entries[slot] = entry;
+		checkHitRate();
+		return entry;
+	}
+
+	private void checkHitRate() {
+		// cheap filter, sums are not
+		if (++unchecked < 256) {
+			return;
+		}
+		unchecked = 0;
+		long misses = this.misses.sum();
+		long hits = this.hits.sum();
+		if (hits + misses >= warmUp && hits < MIN_HIT_RATE * (hits + misses)) {
+			disabled = true;
+		}
+	}
+
+	private static boolean equals(final String value, final CharSequence s,
+			final int start, final int end) {
+		if (value.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) != s.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of values found in the cache
+	 */
+	public long hits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of values allocated while the cache was enabled
+	 */
+	public long misses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return hits over lookups, 0 if there has been none
+	 */
+	public double hitRate() {
+		long hits = hits();
+		long lookups = hits + misses();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * @return whether the cache has been disabled for a low hit rate
+	 */
+	public boolean isDisabled() {
+		return disabled;
+	}
+
+	/**
+	 * @return the number of cache slots
+	 */
+	public int size() {
+		return entries.length;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("hits: %d, misses: %d, hit rate: %.2f%s",
+				hits(), misses(), hitRate(), disabled ? " (disabled)" : "");
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j;
+
+/**
+ * Maps the string serialisation of a csv value into a value of a java type.
+ * Converters are resolved once per domain field, when its hydrator is
+ * created, and can be plugged in for any type via
+ * {@link ValueConverters#register(Class, ValueConverter)}.
+ * 
+ * @author Yannis Theocharis
+ *
+ * @param <T>
+ *            the type values are converted to
+ */
+@FunctionalInterface
+public interface ValueConverter<T> {
+
+	/**
+	 * Converts a csv value
+	 * 
+	 * @param value
+	 *            the non empty csv value
+	 * @return the converted value
+	 */
+	T convert(String value);
+}
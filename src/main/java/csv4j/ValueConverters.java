@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Primitives;
+
+/**
+ * Registry of {@link ValueConverter}s. A field of type T is converted by, in
+ * order of precedence:
+ * <ul>
+ * <li>the converter registered for T (or its wrapper, if T is primitive)</li>
+ * <li>a built-in parser, if T is String, a primitive or a primitive wrapper</li>
+ * <li>T's static "valueOf: String => T" method, resolved once per type</li>
+ * </ul>
+ * Converters are resolved when a hydrator is created, so custom converters
+ * need to be registered before that.
+ * 
+ * @author Yannis Theocharis
+ */
+public class ValueConverters {
+
+	private static final String VALUE_OF = "valueOf";
+
+	private static final Map<Class<?>, ValueConverter<?>> BUILT_IN = ImmutableMap
+			.<Class<?>, ValueConverter<?>> builder()
+			.put(String.class, value -> value)
+			.put(Integer.class, Integer::valueOf)
+			.put(Long.class, Long::valueOf)
+			.put(Double.class, Double::valueOf)
+			.put(Float.class, Float::valueOf)
+			.put(Short.class, Short::valueOf)
+			.put(Byte.class, Byte::valueOf)
+			.put(Boolean.class, Boolean::valueOf)
+			.build();
+
+	private static final Map<Class<?>, ValueConverter<?>> REGISTERED = new ConcurrentHashMap<>();
+
+	// bumped on every (un)registration, so that cached types are recompiled
+	private static final AtomicInteger VERSION = new AtomicInteger();
+
+	private static final ClassValue<ValueConverter<?>> VALUE_OF_CONVERTERS = new ClassValue<ValueConverter<?>>() {
+		@Override
+		protected ValueConverter<?> computeValue(Class<?> type) {
+			return valueOfConverter(type);
+		}
+	};
+
+	private ValueConverters() {
+	}
+
+	/**
+	 * Registers a custom converter, overriding the built-in conversion of the
+	 * given type. Affects hydrators created after the registration.
+	 * 
+	 * @param type
+	 *            the type values are converted to
+	 * @param converter
+	 *            the converter
+	 */
+	public static <T> void register(final Class<T> type,
+			final ValueConverter<? extends T> converter) {
+		Preconditions.checkNotNull(type);
+		Preconditions.checkNotNull(converter);
+		REGISTERED.put(wrap(type), converter);
+		VERSION.incrementAndGet();
+	}
+
+	/**
+	 * Removes the custom converter of the given type, if any
+	 * 
+	 * @param type
+	 *            the type values are converted to
+	 */
+	public static void unregister(final Class<?> type) {
+		Preconditions.checkNotNull(type);
+		REGISTERED.remove(wrap(type));
+		VERSION.incrementAndGet();
+	}
+
+	/**
+	 * @return the version of the registered converters, which changes on
+	 *         every registration
+	 */
+	static int version() {
+		return VERSION.get();
+	}
+
+	static ValueConverter<?> registered(final Class<?> type) {
+		return REGISTERED.get(wrap(type));
+	}
+
+	static ValueConverter<?> converterFor(final Class<?> type) {
+		Preconditions.checkNotNull(type);
+		Class<?> wrapped = wrap(type);
+		ValueConverter<?> converter = REGISTERED.get(wrapped);
+		if (converter == null) {
+			converter = BUILT_IN.get(wrapped);
+		}
+		return converter == null ? VALUE_OF_CONVERTERS.get(wrapped)
+				: converter;
+	}
+
+	private static Class<?> wrap(final Class<?> type) {
+		return type.isPrimitive() ? Primitives.wrap(type) : type;
+	}
+
+	private static ValueConverter<?> valueOfConverter(final Class<?> type) {
+		final MethodHandle valueOf;
+		try {
+			Method method = type.getDeclaredMethod(VALUE_OF, String.class);
+			Preconditions.checkArgument(
+					Modifier.isStatic(method.getModifiers()),
+					"%s.valueOf(String) is not static", type.getName());
+			method.setAccessible(true);
+			valueOf = MethodHandles.lookup().unreflect(method)
+					.asType(MethodType.methodType(Object.class, String.class));
+		} catch (Exception e) {
+			// types without valueOf fail only if a value is actually set
+			return value -> {
+				throw new RuntimeException(e);
+			};
+		}
+		return value -> {
+			try {
+				return valueOf.invokeExact(value);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new RuntimeException(t);
+			}
+		};
+	}
+}
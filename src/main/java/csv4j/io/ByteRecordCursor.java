@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Cursor over the csv records of a window of bytes, which subclasses slide
+ * over their input. Records are located on the raw bytes, with the same rules
+ * as {@link RecordReader}: CR, LF or CRLF end a record, unless quoted. The
+ * current record is a {@link ByteSequence} over the window, so no string is
+ * created per record.
+ * 
+ * Non-ASCII bytes are detected while records are located, at no extra cost
+ * for ASCII bytes, so that pure ASCII records skip charset decoding.
+ * 
+ * @author Yannis Theocharis
+ */
+abstract class ByteRecordCursor implements RecordCursor {
+
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+
+	private final ByteSequence record;
+	private final QuoteScanner scanner;
+	private ByteBuffer window;
+	private int position;
+	private boolean skipLF;
+
+	/**
+	 * @param charset
+	 *            the ASCII-compatible charset of the input
+	 * @param delimiter
+	 *            the ASCII delimiter of the cells
+	 */
+	ByteRecordCursor(final Charset charset, final String delimiter) {
+		this.record = new ByteSequence(charset);
+		this.scanner = new QuoteScanner(delimiter);
+	}
+
+	/**
+	 * Discards the bytes before from, moving the rest to the start of the
+	 * window, and appends more input to it.
+	 * 
+	 * @param window
+	 *            the current window, null before the first call
+	 * @param from
+	 *            index of the first byte to keep
+	 * @return the new window, which holds no byte past the kept ones at the
+	 *         end of the input
+	 */
+	protected abstract ByteBuffer slide(ByteBuffer window, int from);
+
+	@Override
+	public boolean next() {
+		if (window == null || position == window.limit()) {
+			if (!advance(position)) {
+				return false;
+			}
+		}
+		if (skipLF) {
+			skipLF = false;
+			if (window.get(position) == LF) {
+				position++;
+				return next();
+			}
+		}
+		int start = position;
+		int i = position;
+		scanner.reset();
+		boolean ascii = true;
+		while (true) {
+			ByteBuffer bytes = window;
+			int limit = bytes.limit();
+			for (; i < limit; i++) {
+				byte b = bytes.get(i);
+				if (b < 0) {
+					ascii = false;
+				}
+				if (scanner.next((char) (b & 0xff))) {
+					break;
+				}
+			}
+			if (i < limit) {
+				record.set(bytes, start, i, ascii);
+				skipLF = bytes.get(i) == CR;
+				position = i + 1;
+				return true;
+			}
+			int scanned = i - start;
+			boolean more = advance(start);
+			start = 0;
+			i = scanned;
+			if (!more) {
+				// the last record is not terminated
+				record.set(window, 0, scanned, ascii);
+				position = scanned;
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public CharSequence record() {
+		return record;
+	}
+
+	@Override
+	public CharSequence copyRecord() {
+		return record.copy();
+	}
+
+	private boolean advance(final int from) {
+		int kept = window == null ? 0 : window.limit() - from;
+		window = slide(window, from);
+		position = 0;
+		return window.limit() > kept;
+	}
+}
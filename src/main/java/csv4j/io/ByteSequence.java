@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.base.CharMatcher;
+
+/**
+ * Character sequence view over a range of encoded bytes. Each byte is exposed
+ * as a char, which is exact for ASCII and keeps every ASCII character (e.g.
+ * delimiters, quotes, digits) in place for ASCII-compatible encodings: UTF-8,
+ * whose multi-byte characters never contain bytes in the ASCII range, and
+ * single-byte charsets that extend ASCII (e.g. ISO-8859-x, windows-125x).
+ * Multi-byte charsets such as GBK, Big5 or Shift_JIS are not compatible, as
+ * the trailing byte of a character may be an ASCII one. Hence records can be
+ * tokenized and numbers parsed straight from the bytes, while
+ * {@link #toString()} decodes them with the actual charset. Sequences known to
+ * be pure ASCII are decoded as ISO-8859-1, which is a plain copy.
+ * 
+ * @author Yannis Theocharis
+ */
+final class ByteSequence implements CharSequence {
+
+	private static final int ASCII = 0x80;
+
+	private final Charset charset;
+	private ByteBuffer buffer;
+	private int start;
+	private int end;
+	private boolean ascii;
+
+	ByteSequence(final Charset charset) {
+		this.charset = charset;
+	}
+
+	private ByteSequence(final Charset charset, final ByteBuffer buffer,
+			final int start, final int end, final boolean ascii) {
+		this.charset = charset;
+		this.buffer = buffer;
+		this.start = start;
+		this.end = end;
+		this.ascii = ascii;
+	}
+
+	ByteSequence set(final ByteBuffer buffer, final int start, final int end,
+			final boolean ascii) {
+		this.buffer = buffer;
+		this.start = start;
+		this.end = end;
+		this.ascii = ascii;
+		return this;
+	}
+
+	/**
+	 * @return true if every byte in the ASCII range stands for that ASCII
+	 *         character, wherever it appears, which byte level scanning
+	 *         relies on
+	 */
+	static boolean isAsciiCompatible(final Charset charset) {
+		if (charset.equals(StandardCharsets.UTF_8)) {
+			return true;
+		}
+		// other multi-byte charsets may use ASCII bytes within characters
+		if (!charset.canEncode()
+				|| charset.newEncoder().maxBytesPerChar() != 1) {
+			return false;
+		}
+		byte[] bytes = new byte[ASCII];
+		for (int i = 0; i < ASCII; i++) {
+			bytes[i] = (byte) i;
+		}
+		String decoded = new String(bytes, charset);
+		if (decoded.length() != ASCII) {
+			return false;
+		}
+		for (int i = 0; i < ASCII; i++) {
+			if (decoded.charAt(i) != i) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the string is pure ASCII, e.g. a delimiter that can be
+	 *         matched on raw bytes
+	 */
+	static boolean isAscii(final String s) {
+		return CharMatcher.ASCII.matchesAllOf(s);
+	}
+
+	@Override
+	public int length() {
+		return end - start;
+	}
+
+	@Override
+	public char charAt(final int index) {
+		return (char) (buffer.get(start + index) & 0xff);
+	}
+
+	/**
+	 * @return view over a range of the same bytes, valid as long as this
+	 *         sequence is
+	 */
+	@Override
+	public CharSequence subSequence(final int from, final int to) {
+		if (from < 0 || from > to || to > length()) {
+			throw new IndexOutOfBoundsException(from + ", " + to);
+		}
+		return new ByteSequence(charset, buffer, start + from, start + to,
+				ascii);
+	}
+
+	/**
+	 * @return sequence over a copy of the same bytes, valid after the buffer
+	 *         of this sequence is reused
+	 */
+	ByteSequence copy() {
+		byte[] bytes = new byte[end - start];
+		ByteBuffer view = buffer.duplicate();
+		view.position(start);
+		view.get(bytes);
+		return new ByteSequence(charset, ByteBuffer.wrap(bytes), 0,
+				bytes.length, ascii);
+	}
+
+	@Override
+	public String toString() {
+		Charset decoder = ascii ? StandardCharsets.ISO_8859_1 : charset;
+		int length = end - start;
+		if (buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + start,
+					length, decoder);
+		}
+		byte[] bytes = new byte[length];
+		ByteBuffer view = buffer.duplicate();
+		view.position(start);
+		view.get(bytes);
+		return new String(bytes, decoder);
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Cursor over the csv records of a byte channel, read through a buffer that
+ * grows to fit the largest record.
+ * 
+ * @author Yannis Theocharis
+ */
+final class ChannelRecordCursor extends ByteRecordCursor {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final ReadableByteChannel channel;
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private boolean eof;
+
+	ChannelRecordCursor(final ReadableByteChannel channel,
+			final Charset charset, final String delimiter) {
+		super(charset, delimiter);
+		this.channel = channel;
+	}
+
+	@Override
+	protected ByteBuffer slide(final ByteBuffer window, final int from) {
+		int kept = window == null ? 0 : window.limit() - from;
+		if (kept == buffer.capacity()) {
+			ByteBuffer larger = ByteBuffer.allocate(2 * buffer.capacity());
+			System.arraycopy(buffer.array(), from, larger.array(), 0, kept);
+			buffer = larger;
+		} else if (kept > 0) {
+			System.arraycopy(buffer.array(), from, buffer.array(), 0, kept);
+		}
+		buffer.limit(buffer.capacity());
+		buffer.position(kept);
+		try {
+			while (!eof && buffer.position() == kept) {
+				eof = channel.read(buffer) < 0;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
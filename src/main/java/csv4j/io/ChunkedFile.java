@@ -0,0 +1,409 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A local csv file in an ASCII-compatible charset, split into byte ranges
+ * (chunks) that start and end at record boundaries, so that chunks can be read
+ * concurrently.
+ * 
+ * Boundaries are quote-aware: a line break within a quoted value never splits
+ * a chunk. Whether a quote opens a quoted value depends on what precedes it
+ * (see {@link QuoteScanner}), so the file is split in two parallel passes.
+ * The first scans equally sized byte ranges from every possible scanner
+ * state, which tells the state each range ends in for the state it starts
+ * in. Speculative scanners converge within a few records, so this costs
+ * about one or two quote scans of the file, well below tokenizing it.
+ * Chaining these from the start of the file gives the actual state at the
+ * start of each range. The second moves the start of each range to the first
+ * record boundary past it.
+ * 
+ * @author Yannis Theocharis
+ */
+public final class ChunkedFile implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// bytes scanned between merges of the speculative scanners
+	private static final int MERGE_INTERVAL = 1024;
+	private static final byte LF = '\n';
+
+	private final FileChannel channel;
+	private final Charset charset;
+	private final String delimiter;
+	private final long size;
+	private final long headerEnd;
+
+	private ChunkedFile(final FileChannel channel, final Charset charset,
+			final String delimiter) throws IOException {
+		this.channel = channel;
+		this.charset = charset;
+		this.delimiter = delimiter;
+		this.size = channel.size();
+		this.headerEnd = nextRecord(0, QuoteScanner.recordStart());
+	}
+
+	/**
+	 * Opens a comma separated UTF-8 file for chunked reading
+	 * 
+	 * @param p
+	 *            the file path
+	 * @return the opened file
+	 */
+	public static ChunkedFile open(final Path p) {
+		return open(p, StandardCharsets.UTF_8, QuoteScanner.DEFAULT_DELIMITER);
+	}
+
+	/**
+	 * Opens a file for chunked reading, as the given data feed reads it. Only
+	 * feeds reading plain files ({@link DataFeedImpl}, {@link MappedDataFeed})
+	 * can be read in chunks.
+	 * 
+	 * @param p
+	 *            the file path
+	 * @param dataFeed
+	 *            the feed whose charset the file is in
+	 * @param delimiter
+	 *            the ASCII delimiter of the cells
+	 * @return the opened file
+	 * @throws IllegalArgumentException
+	 *             if the feed does not read plain files (e.g.
+	 *             {@link CompressedDataFeed}), or its charset is not
+	 *             ASCII-compatible
+	 */
+	public static ChunkedFile open(final Path p, final DataFeed dataFeed,
+			final String delimiter) {
+		Preconditions.checkNotNull(dataFeed);
+		Charset charset;
+		if (dataFeed.getClass() == DataFeedImpl.class) {
+			charset = ((DataFeedImpl) dataFeed).charset();
+		} else if (dataFeed.getClass() == MappedDataFeed.class) {
+			charset = ((MappedDataFeed) dataFeed).charset();
+		} else {
+			throw new IllegalArgumentException(dataFeed.getClass().getName()
+					+ " cannot be read in chunks");
+		}
+		return open(p, charset, delimiter);
+	}
+
+	/**
+	 * Opens a file for chunked reading
+	 * 
+	 * @param p
+	 *            the file path
+	 * @param charset
+	 *            the ASCII-compatible charset of the file
+	 * @param delimiter
+	 *            the ASCII delimiter of the cells
+	 * @return the opened file
+	 */
+	public static ChunkedFile open(final Path p, final Charset charset,
+			final String delimiter) {
+		Preconditions.checkNotNull(p);
+		Preconditions.checkNotNull(charset);
+		Preconditions.checkArgument(ByteSequence.isAsciiCompatible(charset),
+				"%s is not ASCII-compatible", charset);
+		Preconditions.checkArgument(ByteSequence.isAscii(delimiter),
+				"non ASCII delimiter");
+		try {
+			FileChannel channel = FileChannel.open(p, StandardOpenOption.READ);
+			try {
+				return new ChunkedFile(channel, charset, delimiter);
+			} catch (IOException | RuntimeException e) {
+				channel.close();
+				throw e;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the header (first) record, or null if the file is empty
+	 */
+	public String header() {
+		try (RecordCursor records = records(0, headerEnd)) {
+			return records.next() ? records.record().toString() : null;
+		}
+	}
+
+	/**
+	 * Splits the data records (all records but the header) into chunks
+	 * 
+	 * @param chunks
+	 *            the maximum number of chunks
+	 * @param minChunkSize
+	 *            the minimum size of a chunk in bytes, before alignment
+	 * @param executor
+	 *            the executor that scans the file in parallel
+	 * @return chunk boundaries b, s.t. the i-th chunk is the byte range [b[i],
+	 *         b[i + 1]). Chunks may be empty.
+	 */
+	public long[] split(final int chunks, final long minChunkSize,
+			final ExecutorService executor) {
+		Preconditions.checkArgument(chunks > 0);
+		Preconditions.checkArgument(minChunkSize > 0);
+		long length = size - headerEnd;
+		int n = (int) Math.max(1, Math.min(chunks, length / minChunkSize));
+		long[] starts = new long[n + 1];
+		for (int i = 0; i <= n; i++) {
+			starts[i] = headerEnd + length * i / n;
+		}
+
+		List<Callable<int[]>> scans = new ArrayList<>();
+		for (int i = 0; i < n - 1; i++) {
+			final long from = starts[i];
+			final long to = starts[i + 1];
+			scans.add(() -> transitions(from, to));
+		}
+		List<int[]> transitions = invokeAll(executor, scans);
+
+		List<Callable<Long>> boundaries = new ArrayList<>();
+		int state = QuoteScanner.recordStart();
+		for (int i = 1; i < n; i++) {
+			state = transitions.get(i - 1)[state];
+			final long from = starts[i];
+			final int initial = state;
+			boundaries.add(() -> nextRecord(from, initial));
+		}
+		List<Long> aligned = invokeAll(executor, boundaries);
+		for (int i = 1; i < n; i++) {
+			starts[i] = aligned.get(i - 1);
+		}
+		return starts;
+	}
+
+	/**
+	 * Reads the records of a chunk, on raw bytes (see {@link RecordFeed})
+	 * 
+	 * @param from
+	 *            start of the chunk (inclusive)
+	 * @param to
+	 *            end of the chunk (exclusive)
+	 * @return cursor over the records of the chunk
+	 */
+	public RecordCursor records(final long from, final long to) {
+		return new ChannelRecordCursor(new RangeChannel(from, to), charset,
+				delimiter);
+	}
+
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Scans a byte range from every scanner state. Scanners that reach the
+	 * same state go on identically, so they are merged as they converge: past
+	 * the first line break or quoted value of the range, a couple of scanners
+	 * at most are left.
+	 * 
+	 * @return the state the range ends in, indexed by the state it starts in
+	 */
+	int[] transitions(final long from, final long to) throws IOException {
+		int states = new QuoteScanner(delimiter).states();
+		List<QuoteScanner> scanners = new ArrayList<>();
+		// initial state => index of its scanner
+		int[] scannerOf = new int[states];
+		for (int state = 0; state < states; state++) {
+			QuoteScanner scanner = new QuoteScanner(delimiter);
+			scanner.state(state);
+			scanners.add(scanner);
+			scannerOf[state] = state;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		long position = from;
+		while (position < to) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), to - position));
+			int n = channel.read(buffer, position);
+			if (n < 0) {
+				break;
+			}
+			byte[] bytes = buffer.array();
+			for (int start = 0; start < n; start += MERGE_INTERVAL) {
+				int end = Math.min(n, start + MERGE_INTERVAL);
+				for (QuoteScanner scanner : scanners) {
+					for (int i = start; i < end; i++) {
+						scanner.next((char) (bytes[i] & 0xff));
+					}
+				}
+				if (scanners.size() > 1) {
+					merge(scanners, scannerOf, states);
+				}
+			}
+			position += n;
+		}
+		int[] transitions = new int[states];
+		for (int state = 0; state < states; state++) {
+			transitions[state] = scanners.get(scannerOf[state]).state();
+		}
+		return transitions;
+	}
+
+	/**
+	 * Keeps a single scanner per state, remapping the initial states to the
+	 * scanners kept
+	 */
+	private static void merge(final List<QuoteScanner> scanners,
+			final int[] scannerOf, final int states) {
+		int[] kept = new int[states];
+		Arrays.fill(kept, -1);
+		int[] merged = new int[scanners.size()];
+		List<QuoteScanner> distinct = new ArrayList<>();
+		for (int i = 0; i < scanners.size(); i++) {
+			int state = scanners.get(i).state();
+			if (kept[state] < 0) {
+				kept[state] = distinct.size();
+				distinct.add(scanners.get(i));
+			}
+			merged[i] = kept[state];
+		}
+		if (distinct.size() == scanners.size()) {
+			return;
+		}
+		for (int state = 0; state < states; state++) {
+			scannerOf[state] = merged[scannerOf[state]];
+		}
+		scanners.clear();
+		scanners.addAll(distinct);
+	}
+
+	/**
+	 * @return the start of the first record past the given position, or the
+	 *         file size if there is none
+	 */
+	private long nextRecord(final long from, final int state)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		QuoteScanner scanner = new QuoteScanner(delimiter);
+		scanner.state(state);
+		boolean afterCR = false;
+		long position = from;
+		while (position < size) {
+			buffer.clear();
+			int n = channel.read(buffer, position);
+			if (n < 0) {
+				break;
+			}
+			byte[] bytes = buffer.array();
+			for (int i = 0; i < n; i++) {
+				byte b = bytes[i];
+				if (afterCR) {
+					return b == LF ? position + i + 1 : position + i;
+				}
+				if (scanner.next((char) (b & 0xff))) {
+					if (b == LF) {
+						return position + i + 1;
+					}
+					afterCR = true;
+				}
+			}
+			position += n;
+		}
+		return size;
+	}
+
+	private static <V> List<V> invokeAll(final ExecutorService executor,
+			final List<Callable<V>> tasks) {
+		try {
+			List<V> values = new ArrayList<>();
+			for (Future<V> future : executor.invokeAll(tasks)) {
+				values.add(future.get());
+			}
+			return values;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Reads a byte range of the file with positional reads, so that ranges can
+	 * be read concurrently from the same channel. Closing a range leaves the
+	 * file open.
+	 */
+	private class RangeChannel implements ReadableByteChannel {
+
+		private long position;
+		private final long to;
+		private boolean open = true;
+
+		RangeChannel(final long from, final long to) {
+			this.position = from;
+			this.to = to;
+		}
+
+		@Override
+		public int read(final ByteBuffer dst) throws IOException {
+			if (position >= to) {
+				return -1;
+			}
+			ByteBuffer range = dst;
+			if (dst.remaining() > to - position) {
+				range = dst.duplicate();
+				range.limit(range.position() + (int) (to - position));
+			}
+			int n = channel.read(range, position);
+			if (n > 0) {
+				position += n;
+				if (range != dst) {
+					dst.position(dst.position() + n);
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() {
+			open = false;
+		}
+	}
+}
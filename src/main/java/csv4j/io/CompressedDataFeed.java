@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Reads files that may be compressed, without decompressing them to disk.
+ * Compression is detected by the magic bytes of the files, not their names,
+ * so uncompressed files are read as they are. Files are decompressed ahead,
+ * on a background thread, so that decompression overlaps with hydration (see
+ * {@link ReadAheadChannel}). Files are UTF-8 encoded by default.
+ * 
+ * Gzip files are supported, including concatenated (multi-member) ones.
+ * Bzip2 and zstd files are detected but rejected, as the JDK has no codec for
+ * them.
+ * 
+ * @author Yannis Theocharis
+ */
+public class CompressedDataFeed implements DataFeed, RecordFeed {
+
+	private static final int BLOCK_SIZE = 64 * 1024;
+	private static final int BLOCKS_AHEAD = 16;
+	private static final int MAGIC_LENGTH = 4;
+
+	private final Charset charset;
+	private final boolean asciiCompatible;
+
+	public CompressedDataFeed() {
+		this(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param charset
+	 *            the charset of the (decompressed) files
+	 */
+	public CompressedDataFeed(final Charset charset) {
+		Preconditions.checkNotNull(charset);
+		this.charset = charset;
+		this.asciiCompatible = ByteSequence.isAsciiCompatible(charset);
+	}
+
+	@Override
+	public Stream<String> lines(Path p) {
+		return lines(open(p), QuoteScanner.DEFAULT_DELIMITER);
+	}
+
+	@Override
+	public RecordCursor records(Path p, String delimiter) {
+		return records(open(p), delimiter);
+	}
+
+	@Override
+	public RecordCursor records(ReadableByteChannel channel, String delimiter) {
+		Preconditions.checkNotNull(channel);
+		return records(readAhead(Channels.newInputStream(channel)), delimiter);
+	}
+
+	private RecordCursor records(final ReadAheadChannel channel,
+			final String delimiter) {
+		if (!asciiCompatible || !ByteSequence.isAscii(delimiter)) {
+			return RecordCursor.of(lines(channel, delimiter));
+		}
+		return new ChannelRecordCursor(channel, charset, delimiter);
+	}
+
+	private Stream<String> lines(final ReadAheadChannel channel,
+			final String delimiter) {
+		return new RecordReader(new InputStreamReader(
+				Channels.newInputStream(channel), charset), delimiter)
+				.stream();
+	}
+
+	private static ReadAheadChannel open(final Path p) {
+		Preconditions.checkNotNull(p);
+		try {
+			return readAhead(Files.newInputStream(p));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static ReadAheadChannel readAhead(final InputStream in) {
+		try {
+			return new ReadAheadChannel(decompressed(in), BLOCK_SIZE,
+					BLOCKS_AHEAD);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Detects the compression of a stream by its magic bytes
+	 * 
+	 * @param in
+	 *            the possibly compressed stream
+	 * @return the decompressed stream, or the stream itself if it is not
+	 *         compressed
+	 * @throws IOException
+	 */
+	static InputStream decompressed(final InputStream in) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in, BLOCK_SIZE);
+		byte[] magic = new byte[MAGIC_LENGTH];
+		buffered.mark(MAGIC_LENGTH);
+		int n = ByteStreams.read(buffered, magic, 0, MAGIC_LENGTH);
+		buffered.reset();
+		try {
+			if (n >= 2 && (magic[0] & 0xff) == 0x1f
+					&& (magic[1] & 0xff) == 0x8b) {
+				return new GZIPInputStream(buffered, BLOCK_SIZE);
+			}
+			if (n >= 3 && magic[0] == 'B' && magic[1] == 'Z'
+					&& magic[2] == 'h') {
+				throw new IllegalArgumentException(
+						"bzip2 compressed input is not supported");
+			}
+			if (n == MAGIC_LENGTH && (magic[0] & 0xff) == 0x28
+					&& (magic[1] & 0xff) == 0xb5 && (magic[2] & 0xff) == 0x2f
+					&& (magic[3] & 0xff) == 0xfd) {
+				throw new IllegalArgumentException(
+						"zstd compressed input is not supported");
+			}
+			return buffered;
+		} catch (IOException | RuntimeException e) {
+			buffered.close();
+			throw e;
+		}
+	}
+}
@@ -22,7 +22,9 @@ import java.util.stream.Stream;
 public interface DataFeed {
 
 	/**
-	 * Reads a file and returns its lines as a stream
+	 * Reads a file and returns its lines as a stream. Lines are csv records:
+	 * implementations reading quoted values that contain line breaks have to
+	 * return each such record as a single line.
 	 * 
 	 * @param p
 	 *            the file path
@@ -17,19 +17,87 @@
 package csv4j.io;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.stream.Stream;
 
-public class DataFeedImpl implements DataFeed {
+import com.google.common.base.Preconditions;
+
+/**
+ * Reads files record by record (see {@link RecordReader}), so that line breaks
+ * within quoted values do not split records. Files are UTF-8 encoded by
+ * default.
+ * 
+ * For ASCII-compatible charsets (e.g. UTF-8, ISO-8859-1) records are read on
+ * raw bytes (see {@link RecordFeed}): delimiters and line breaks are located
+ * without decoding, numbers are parsed straight from the bytes and only the
+ * values that are actually materialized as strings are decoded (pure ASCII
+ * ones with a plain copy).
+ */
+public class DataFeedImpl implements DataFeed, RecordFeed {
+
+	private final Charset charset;
+	private final boolean asciiCompatible;
+
+	public DataFeedImpl() {
+		this(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param charset
+	 *            the charset of the files
+	 */
+	public DataFeedImpl(final Charset charset) {
+		Preconditions.checkNotNull(charset);
+		this.charset = charset;
+		this.asciiCompatible = ByteSequence.isAsciiCompatible(charset);
+	}
+
+	Charset charset() {
+		return charset;
+	}
 
 	@Override
 	public Stream<String> lines(Path p) {
+		return lines(p, QuoteScanner.DEFAULT_DELIMITER);
+	}
+
+	private Stream<String> lines(final Path p, final String delimiter) {
 		try {
-			return Files.lines(p);
+			return new RecordReader(Files.newBufferedReader(p, charset),
+					delimiter).stream();
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	@Override
+	public RecordCursor records(Path p, String delimiter) {
+		if (!asciiCompatible || !ByteSequence.isAscii(delimiter)) {
+			return RecordCursor.of(lines(p, delimiter));
+		}
+		try {
+			return records(FileChannel.open(p, StandardOpenOption.READ),
+					delimiter);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public RecordCursor records(ReadableByteChannel channel, String delimiter) {
+		Preconditions.checkNotNull(channel);
+		if (!asciiCompatible || !ByteSequence.isAscii(delimiter)) {
+			return RecordCursor.of(new RecordReader(Channels.newReader(channel,
+					charset.newDecoder(), -1), delimiter).stream());
+		}
+		return new ChannelRecordCursor(channel, charset, delimiter);
+	}
+
 }
@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Reads files by mapping them into memory, in windows of a given size, so
+ * that files of any size can be read. Records are located straight on the
+ * mapped bytes and handed to the tokenizer as views over them (see
+ * {@link RecordCursor}): no string is created per line and no bytes are
+ * copied into intermediate buffers. Files are UTF-8 encoded by default, but
+ * any ASCII-compatible charset can be used.
+ * 
+ * Meant for large local files. Mapped windows are only unmapped when the
+ * garbage collector reclaims them, while the number of mappings of a process
+ * is limited (e.g. vm.max_map_count on Linux), so windows are at least
+ * {@link #MIN_WINDOW_SIZE} bytes.
+ * 
+ * @author Yannis Theocharis
+ */
+public class MappedDataFeed implements DataFeed, RecordFeed {
+
+	/**
+	 * The minimum size of the mapped windows in bytes
+	 */
+	public static final int MIN_WINDOW_SIZE = 1 << 16;
+
+	private static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+	private final int windowSize;
+	private final Charset charset;
+
+	public MappedDataFeed() {
+		this(DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param windowSize
+	 *            size of the mapped windows in bytes, at least
+	 *            {@link #MIN_WINDOW_SIZE}. Records larger than a window are
+	 *            mapped in larger windows.
+	 */
+	public MappedDataFeed(final int windowSize) {
+		this(windowSize, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param charset
+	 *            the ASCII-compatible charset of the files
+	 */
+	public MappedDataFeed(final Charset charset) {
+		this(DEFAULT_WINDOW_SIZE, charset);
+	}
+
+	/**
+	 * @param windowSize
+	 *            size of the mapped windows in bytes, at least
+	 *            {@link #MIN_WINDOW_SIZE}. Records larger than a window are
+	 *            mapped in larger windows.
+	 * @param charset
+	 *            the ASCII-compatible charset of the files
+	 */
+	public MappedDataFeed(final int windowSize, final Charset charset) {
+		Preconditions.checkArgument(windowSize >= MIN_WINDOW_SIZE,
+				"windows smaller than %s bytes", MIN_WINDOW_SIZE);
+		Preconditions.checkNotNull(charset);
+		Preconditions.checkArgument(ByteSequence.isAsciiCompatible(charset),
+				"%s is not ASCII-compatible", charset);
+		this.windowSize = windowSize;
+		this.charset = charset;
+	}
+
+	Charset charset() {
+		return charset;
+	}
+
+	@Override
+	public Stream<String> lines(Path p) {
+		return records(p, QuoteScanner.DEFAULT_DELIMITER).stream();
+	}
+
+	/**
+	 * Files with a non-ASCII delimiter are read as strings instead
+	 */
+	@Override
+	public RecordCursor records(Path p, String delimiter) {
+		Preconditions.checkNotNull(p);
+		try {
+			if (!ByteSequence.isAscii(delimiter)) {
+				return RecordCursor.of(new RecordReader(Files
+						.newBufferedReader(p, charset), delimiter).stream());
+			}
+			return new MappedRecordCursor(FileChannel.open(p,
+					StandardOpenOption.READ), windowSize, charset, delimiter);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Channels other than files cannot be mapped, they are read through a
+	 * buffer instead
+	 */
+	@Override
+	public RecordCursor records(ReadableByteChannel channel, String delimiter) {
+		Preconditions.checkNotNull(channel);
+		if (!ByteSequence.isAscii(delimiter)) {
+			return RecordCursor.of(new RecordReader(Channels.newReader(channel,
+					charset.newDecoder(), -1), delimiter).stream());
+		}
+		return new ChannelRecordCursor(channel, charset, delimiter);
+	}
+
+	private static final class MappedRecordCursor extends ByteRecordCursor {
+
+		private final FileChannel channel;
+		private final int windowSize;
+		private long offset;
+
+		MappedRecordCursor(final FileChannel channel, final int windowSize,
+				final Charset charset, final String delimiter) {
+			super(charset, delimiter);
+			this.channel = channel;
+			this.windowSize = windowSize;
+		}
+
+		@Override
+		protected ByteBuffer slide(final ByteBuffer window, final int from) {
+			try {
+				long start = window == null ? 0 : offset + from;
+				long kept = window == null ? 0 : window.limit() - from;
+				long size = channel.size();
+				if (start + kept >= size) {
+					// end of file, keep the tail of the current window
+					offset = start;
+					ByteBuffer tail = window == null ? ByteBuffer.allocate(0)
+							: window.duplicate();
+					tail.position(from);
+					return tail.slice();
+				}
+				long length = Math.min(size - start,
+						Math.max(windowSize, 2 * kept));
+				Preconditions.checkState(length <= Integer.MAX_VALUE,
+						"record too large");
+				ByteBuffer mapped = channel.map(MapMode.READ_ONLY, start,
+						length);
+				offset = start;
+				return mapped;
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+}
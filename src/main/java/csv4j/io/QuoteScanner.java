@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j.io;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Locates the line breaks that end csv records, deciding quotes the way the
+ * {@link csv4j.parse.Tokenizer} does: a quote opens a quoted value only at
+ * the start of a cell, i.e. at the start of a record or right after a
+ * delimiter. Quotes elsewhere are literal text (e.g. 5" screen), so they
+ * never make the following line breaks part of the record.
+ * 
+ * Characters are fed one at a time. Characters above the quote, line breaks
+ * and the delimiter (letters, digits, most punctuation) are handled with a
+ * single comparison.
+ * 
+ * The scanner state (see {@link #state()}) is a small int, so that the
+ * state at a position can be computed speculatively, for every possible
+ * state at an earlier position.
+ * 
+ * @author Yannis Theocharis
+ */
+final class QuoteScanner {
+
+	static final String DEFAULT_DELIMITER = ",";
+
+	private static final char QUOTE = '"';
+	private static final char CR = '\r';
+	private static final char LF = '\n';
+
+	// within an unquoted cell
+	private static final int UNQUOTED = 0;
+	// at the start of a cell
+	private static final int CELL_START = 1;
+	// within a quoted value
+	private static final int QUOTED = 2;
+	// right after a quote within a quoted value, which closes the value
+	// unless it is followed by another (escaped) quote
+	private static final int CLOSING = 3;
+	private static final int PHASES = 4;
+
+	private final char[] delimiter;
+	// prefix function of the delimiter, for matching it incrementally
+	private final int[] fallback;
+	private final char max;
+	private int phase = CELL_START;
+	private int matched;
+
+	/**
+	 * @param delimiter
+	 *            the delimiter of the cells
+	 */
+	QuoteScanner(final String delimiter) {
+		Preconditions.checkArgument(!delimiter.isEmpty(), "empty delimiter");
+		this.delimiter = delimiter.toCharArray();
+		this.fallback = new int[this.delimiter.length];
+		for (int i = 1, k = 0; i < this.delimiter.length; i++) {
+			while (k > 0 && this.delimiter[i] != this.delimiter[k]) {
+				k = fallback[k - 1];
+			}
+			if (this.delimiter[i] == this.delimiter[k]) {
+				k++;
+			}
+			fallback[i] = k;
+		}
+		char max = QUOTE;
+		for (char c : this.delimiter) {
+			max = (char) Math.max(max, c);
+		}
+		this.max = max;
+	}
+
+	/**
+	 * Feeds the next character of the input
+	 * 
+	 * @return true if the character is a line break that ends a record
+	 */
+	boolean next(final char c) {
+		if (c > max) {
+			if (phase != QUOTED) {
+				phase = UNQUOTED;
+				matched = 0;
+			}
+			return false;
+		}
+		if (phase == QUOTED) {
+			if (c == QUOTE) {
+				phase = CLOSING;
+			}
+			return false;
+		}
+		if (phase == CLOSING && c == QUOTE) {
+			phase = QUOTED;
+			return false;
+		}
+		if (c == LF || c == CR) {
+			phase = CELL_START;
+			matched = 0;
+			return true;
+		}
+		if (c == QUOTE && phase == CELL_START) {
+			phase = QUOTED;
+			return false;
+		}
+		phase = UNQUOTED;
+		while (matched > 0 && c != delimiter[matched]) {
+			matched = fallback[matched - 1];
+		}
+		if (c == delimiter[matched] && ++matched == delimiter.length) {
+			phase = CELL_START;
+			matched = 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Moves to the start of a record
+	 */
+	void reset() {
+		phase = CELL_START;
+		matched = 0;
+	}
+
+	/**
+	 * @return the current state, in [0, {@link #states()})
+	 */
+	int state() {
+		return matched * PHASES + phase;
+	}
+
+	/**
+	 * @param state
+	 *            a state returned by {@link #state()}
+	 */
+	void state(final int state) {
+		this.phase = state % PHASES;
+		this.matched = state / PHASES;
+	}
+
+	/**
+	 * @return the number of states
+	 */
+	int states() {
+		return PHASES * delimiter.length;
+	}
+
+	/**
+	 * @return the state at the start of a record
+	 */
+	static int recordStart() {
+		return CELL_START;
+	}
+}
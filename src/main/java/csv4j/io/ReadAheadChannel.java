@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Channel reading an input stream ahead, on a background thread, into a
+ * bounded queue of blocks. Reading (e.g. decompressing) the stream overlaps
+ * with consuming it, and the consumer never gets more than a few blocks
+ * behind, so memory stays bounded.
+ * 
+ * Failures of the background thread are rethrown to the consumer once the
+ * blocks read before them are consumed. Closing the channel stops the
+ * background thread and closes the stream.
+ * 
+ * @author Yannis Theocharis
+ */
+final class ReadAheadChannel implements ReadableByteChannel {
+
+	private static final ByteBuffer EOF = ByteBuffer.allocate(0);
+
+	private final BlockingQueue<ByteBuffer> blocks;
+	private final Thread reader;
+	private volatile Throwable failure;
+	private volatile boolean open = true;
+	private ByteBuffer current;
+
+	/**
+	 * @param in
+	 *            the stream to read ahead
+	 * @param blockSize
+	 *            the size of the blocks in bytes
+	 * @param maxBlocks
+	 *            the maximum number of blocks read ahead
+	 */
+	ReadAheadChannel(final InputStream in, final int blockSize,
+			final int maxBlocks) {
+		this.blocks = new ArrayBlockingQueue<>(maxBlocks);
+		this.reader = new Thread(() -> readAhead(in, blockSize),
+				"csv4j-read-ahead");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	private void readAhead(final InputStream in, final int blockSize) {
+		try (InputStream input = in) {
+			int n;
+			do {
+				byte[] block = new byte[blockSize];
+				n = ByteStreams.read(input, block, 0, blockSize);
+				if (n > 0) {
+					blocks.put(ByteBuffer.wrap(block, 0, n));
+				}
+			} while (n == blockSize && open);
+		} catch (InterruptedException e) {
+			// closed by the consumer
+		} catch (Throwable t) {
+			// e.g. a decompressor bug or an OutOfMemoryError
+			failure = t;
+		} finally {
+			// whatever stopped the reader, the consumer waits for the end
+			if (open) {
+				try {
+					blocks.put(EOF);
+				} catch (InterruptedException e) {
+					// closed by the consumer
+				}
+			}
+		}
+	}
+
+	@Override
+	public int read(final ByteBuffer dst) throws IOException {
+		if (!open) {
+			throw new ClosedChannelException();
+		}
+		while (current == null || !current.hasRemaining()) {
+			if (current == EOF) {
+				return eof();
+			}
+			try {
+				current = blocks.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+		int n = Math.min(dst.remaining(), current.remaining());
+		ByteBuffer chunk = current.duplicate();
+		chunk.limit(chunk.position() + n);
+		dst.put(chunk);
+		current.position(current.position() + n);
+		return n;
+	}
+
+	private int eof() throws IOException {
+		Throwable failure = this.failure;
+		if (failure instanceof IOException) {
+			throw (IOException) failure;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		if (failure != null) {
+			throw new IOException(failure);
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public void close() {
+		open = false;
+		reader.interrupt();
+		blocks.clear();
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pull-style reader of csv records. Unlike a stream of lines, the current
+ * record may be a view (e.g. over a byte buffer) that is only valid until the
+ * next call to {@link #next()}, so that records need not be materialized as
+ * strings.
+ * 
+ * @author Yannis Theocharis
+ */
+public interface RecordCursor extends Closeable {
+
+	/**
+	 * Moves to the next record
+	 * 
+	 * @return false if there are no more records
+	 */
+	boolean next();
+
+	/**
+	 * @return the current record, without its terminator
+	 */
+	CharSequence record();
+
+	/**
+	 * @return a copy of the current record, valid past the next call to
+	 *         {@link #next()}. Records read on raw bytes are copied as bytes,
+	 *         so that whoever consumes them decodes them, if at all.
+	 */
+	default CharSequence copyRecord() {
+		return record().toString();
+	}
+
+	@Override
+	void close();
+
+	/**
+	 * @return the remaining records as a stream of strings, which closes this
+	 *         cursor when closed
+	 */
+	default Stream<String> stream() {
+		Spliterator<String> records = new Spliterators.AbstractSpliterator<String>(
+				Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super String> action) {
+				if (!next()) {
+					return false;
+				}
+				action.accept(record().toString());
+				return true;
+			}
+		};
+		return StreamSupport.stream(records, false).onClose(this::close);
+	}
+
+	/**
+	 * Adapts a stream of records (e.g. the lines of a {@link DataFeed})
+	 * 
+	 * @param records
+	 *            the records
+	 * @return cursor over the records, which closes the stream when closed
+	 */
+	static RecordCursor of(final Stream<? extends CharSequence> records) {
+		final Iterator<? extends CharSequence> iterator = records.iterator();
+		return new RecordCursor() {
+
+			private CharSequence record;
+
+			@Override
+			public boolean next() {
+				if (!iterator.hasNext()) {
+					return false;
+				}
+				record = iterator.next();
+				return true;
+			}
+
+			@Override
+			public CharSequence record() {
+				return record;
+			}
+
+			@Override
+			public void close() {
+				records.close();
+			}
+		};
+	}
+}
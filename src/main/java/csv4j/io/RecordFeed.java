@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * A source of csv records that can be read without materializing every
+ * record as a string (see {@link RecordCursor}). Hydrators read from
+ * {@link DataFeed}s that also implement this interface through their cursors.
+ * 
+ * Records are located with the same quoting rules as the tokenizer, which
+ * depend on the delimiter of the cells (see {@link RecordReader}). Feeds scan
+ * records on raw bytes for ASCII-compatible encodings and ASCII delimiters,
+ * and read them as strings otherwise.
+ * 
+ * @author Yannis Theocharis
+ */
+public interface RecordFeed {
+
+	/**
+	 * Opens a comma separated file for reading its records
+	 * 
+	 * @param p
+	 *            the file path
+	 * @return cursor over the file records
+	 */
+	default RecordCursor records(Path p) {
+		return records(p, QuoteScanner.DEFAULT_DELIMITER);
+	}
+
+	/**
+	 * Opens a file for reading its records
+	 * 
+	 * @param p
+	 *            the file path
+	 * @param delimiter
+	 *            the delimiter of the cells
+	 * @return cursor over the file records
+	 */
+	RecordCursor records(Path p, String delimiter);
+
+	/**
+	 * Reads the records of a comma separated byte source in a single pass
+	 * 
+	 * @param channel
+	 *            the channel to read, closed along with the cursor
+	 * @return cursor over the channel records
+	 */
+	default RecordCursor records(ReadableByteChannel channel) {
+		return records(channel, QuoteScanner.DEFAULT_DELIMITER);
+	}
+
+	/**
+	 * Reads the records of a byte source (e.g. a socket or an in-memory
+	 * payload) in a single pass
+	 * 
+	 * @param channel
+	 *            the channel to read, closed along with the cursor
+	 * @param delimiter
+	 *            the delimiter of the cells
+	 * @return cursor over the channel records
+	 */
+	RecordCursor records(ReadableByteChannel channel, String delimiter);
+}
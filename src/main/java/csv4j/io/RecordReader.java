@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads csv records out of a character stream. Records are separated by CR, LF
+ * or CRLF, unless these appear within a quoted value (RFC 4180), in which case
+ * they are part of the record. Records are returned verbatim (quotes
+ * included), for the tokenizer to split them into cells.
+ * 
+ * Quotes open a quoted value at the start of a cell only, as they do for the
+ * tokenizer (see {@link QuoteScanner}), so the delimiter of the cells has to
+ * be known. It is a comma by default.
+ * 
+ * @author Yannis Theocharis
+ */
+public final class RecordReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final char CR = '\r';
+	private static final char LF = '\n';
+
+	private final Reader reader;
+	private final QuoteScanner scanner;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private final StringBuilder pending = new StringBuilder();
+	private int position;
+	private int limit;
+	private boolean eof;
+	private boolean skipLF;
+
+	public RecordReader(final Reader reader) {
+		this(reader, QuoteScanner.DEFAULT_DELIMITER);
+	}
+
+	/**
+	 * @param reader
+	 *            the character stream
+	 * @param delimiter
+	 *            the delimiter of the cells
+	 */
+	public RecordReader(final Reader reader, final String delimiter) {
+		this.reader = reader;
+		this.scanner = new QuoteScanner(delimiter);
+	}
+
+	/**
+	 * Reads the next record
+	 * 
+	 * @return the next record, without its terminator, or null if there are
+	 *         no more records
+	 */
+	public String next() {
+		scanner.reset();
+		pending.setLength(0);
+		boolean started = false;
+		while (true) {
+			if (position == limit && !fill()) {
+				return started ? pending.toString() : null;
+			}
+			if (skipLF) {
+				skipLF = false;
+				if (buffer[position] == LF) {
+					position++;
+					continue;
+				}
+			}
+			started = true;
+			int start = position;
+			int i = position;
+			while (i < limit && !scanner.next(buffer[i])) {
+				i++;
+			}
+			if (i == limit) {
+				pending.append(buffer, start, i - start);
+				position = limit;
+				continue;
+			}
+			skipLF = buffer[i] == CR;
+			position = i + 1;
+			if (pending.length() == 0) {
+				return new String(buffer, start, i - start);
+			}
+			return pending.append(buffer, start, i - start).toString();
+		}
+	}
+
+	/**
+	 * @return the records as a stream, which closes this reader when closed
+	 */
+	public Stream<String> stream() {
+		Spliterator<String> records = new Spliterators.AbstractSpliterator<String>(
+				Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super String> action) {
+				String record = next();
+				if (record == null) {
+					return false;
+				}
+				action.accept(record);
+				return true;
+			}
+		};
+		return StreamSupport.stream(records, false).onClose(this::close);
+	}
+
+	@Override
+	public void close() {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private boolean fill() {
+		if (eof) {
+			return false;
+		}
+		try {
+			int n;
+			do {
+				n = reader.read(buffer, 0, buffer.length);
+			} while (n == 0);
+			if (n < 0) {
+				eof = true;
+				return false;
+			}
+			position = 0;
+			limit = n;
+			return true;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
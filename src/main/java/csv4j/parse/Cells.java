@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.parse;
+
+import java.util.Arrays;
+
+/**
+ * Cells of a tokenized csv line, exposed as [start, end) slices of the line,
+ * so that a cell is only materialized (if at all) by whoever consumes it.
+ * Quoted cells are exposed without their enclosing quotes. Cells that contain
+ * escaped quotes (or text past their closing quote) are not plain slices of
+ * the line: they are flagged as escaped, their bounds include the quotes and
+ * they have to be materialized by {@link #toString(int)}.
+ * 
+ * Lines tokenized with a projection only hold the bounds of projected cells.
+ * The rest are counted but skipped: their bounds are undefined.
+ * 
+ * Instances are reused by their {@link Tokenizer}, hence they are only valid
+ * until the next line is tokenized on the same thread.
+ * 
+ * @author Yannis Theocharis
+ */
+public final class Cells {
+
+	private static final int INITIAL_CAPACITY = 16;
+	private static final char QUOTE = '"';
+
+	private CharSequence line;
+	private int[] bounds = new int[2 * INITIAL_CAPACITY];
+	private boolean[] escaped = new boolean[INITIAL_CAPACITY];
+	private int count;
+
+	Cells() {
+	}
+
+	void reset(final CharSequence line) {
+		this.line = line;
+		this.count = 0;
+	}
+
+	void add(final int start, final int end) {
+		add(start, end, false);
+	}
+
+	void addEscaped(final int start, final int end) {
+		add(start, end, true);
+	}
+
+	void skip() {
+		count++;
+	}
+
+	private void add(final int start, final int end, final boolean isEscaped) {
+		int i = 2 * count;
+		if (i >= bounds.length) {
+			int capacity = Math.max(2 * escaped.length, count + 1);
+			bounds = Arrays.copyOf(bounds, 2 * capacity);
+			escaped = Arrays.copyOf(escaped, capacity);
+		}
+		bounds[i] = start;
+		bounds[i + 1] = end;
+		escaped[count] = isEscaped;
+		count++;
+	}
+
+	/**
+	 * @return the tokenized line
+	 */
+	public CharSequence line() {
+		return line;
+	}
+
+	/**
+	 * @return number of cells in the line
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * @return start index (inclusive) of the i-th cell in the line
+	 */
+	public int start(final int i) {
+		return bounds[2 * i];
+	}
+
+	/**
+	 * @return end index (exclusive) of the i-th cell in the line
+	 */
+	public int end(final int i) {
+		return bounds[2 * i + 1];
+	}
+
+	/**
+	 * @return true if the i-th cell is empty
+	 */
+	public boolean isEmpty(final int i) {
+		return bounds[2 * i] == bounds[2 * i + 1];
+	}
+
+	/**
+	 * @return true if the i-th cell is not a plain slice of the line
+	 */
+	public boolean isEscaped(final int i) {
+		return escaped[i];
+	}
+
+	/**
+	 * Materializes the i-th cell, unescaping it if needed
+	 * 
+	 * @return the i-th cell as a string
+	 */
+	public String toString(final int i) {
+		if (escaped[i]) {
+			return unescape(line, start(i), end(i));
+		}
+		return line.subSequence(start(i), end(i)).toString();
+	}
+
+	/**
+	 * Lines may be views over encoded bytes, whose chars are the decoded ones
+	 * for ASCII only. Slices that are not known to be decoded have to be
+	 * materialized before their chars are hashed or compared to strings.
+	 * 
+	 * @return true if the chars of the slice are the decoded ones
+	 */
+	public static boolean isDecoded(final CharSequence line, final int start,
+			final int end) {
+		if (line instanceof String) {
+			return true;
+		}
+		for (int i = start; i < end; i++) {
+			if (line.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decodes the cell before unescaping it, as lines may be views over
+	 * encoded bytes, whose chars are not the decoded ones
+	 */
+	private static String unescape(final CharSequence line, final int start,
+			final int end) {
+		String cell = line.subSequence(start, end).toString();
+		StringBuilder sb = new StringBuilder(cell.length());
+		boolean quoted = false;
+		for (int i = 0; i < cell.length(); i++) {
+			char c = cell.charAt(i);
+			if (c != QUOTE) {
+				sb.append(c);
+			} else if (quoted && i + 1 < cell.length()
+					&& cell.charAt(i + 1) == QUOTE) {
+				sb.append(QUOTE);
+				i++;
+			} else {
+				quoted = !quoted;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Materializes all cells
+	 * 
+	 * @return the cells as strings
+	 */
+	public String[] toArray() {
+		String[] values = new String[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = toString(i);
+		}
+		return values;
+	}
+}
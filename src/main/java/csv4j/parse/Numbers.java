@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.parse;
+
+/**
+ * Parses primitive values straight out of a slice of a character sequence
+ * (e.g. a csv line), so that numeric cells are hydrated without materializing
+ * a String or a wrapper object per cell.
+ * 
+ * Accepted input is the same as the one of the respective
+ * Integer/Long/Double/Boolean parse methods. Double values are parsed
+ * directly when they are exactly representable as the quotient or product of
+ * two doubles (up to 15 significant digits and a small exponent, i.e. the vast
+ * majority of csv data), and by Double.parseDouble otherwise, so results are
+ * always correctly rounded.
+ * 
+ * @author Yannis Theocharis
+ */
+public final class Numbers {
+
+	private static final int MAX_EXACT_DIGITS = 15;
+	private static final int MAX_EXACT_POWER = 22;
+	private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+	static {
+		POWERS_OF_TEN[0] = 1.0;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private static final String TRUE = "true";
+
+	private Numbers() {
+	}
+
+	/**
+	 * Parses the slice [start, end) of s as a signed decimal int
+	 * 
+	 * @throws NumberFormatException
+	 *             if the slice does not contain a parsable int
+	 */
+	public static int parseInt(final CharSequence s, final int start,
+			final int end) {
+		long value = parseLong(s, start, end, Integer.MIN_VALUE,
+				Integer.MAX_VALUE);
+		return (int) value;
+	}
+
+	/**
+	 * Parses the slice [start, end) of s as a signed decimal long
+	 * 
+	 * @throws NumberFormatException
+	 *             if the slice does not contain a parsable long
+	 */
+	public static long parseLong(final CharSequence s, final int start,
+			final int end) {
+		return parseLong(s, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	private static long parseLong(final CharSequence s, final int start,
+			final int end, final long min, final long max) {
+		int i = start;
+		boolean negative = false;
+		if (i < end) {
+			char c = s.charAt(i);
+			if (c == '-' || c == '+') {
+				negative = c == '-';
+				i++;
+			}
+		}
+		if (i == end) {
+			throw invalid(s, start, end);
+		}
+		// accumulate negatively, as |min| > max
+		long limit = negative ? min : -max;
+		long multmin = limit / 10;
+		long result = 0;
+		for (; i < end; i++) {
+			int digit = s.charAt(i) - '0';
+			if (digit < 0 || digit > 9 || result < multmin) {
+				throw invalid(s, start, end);
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				throw invalid(s, start, end);
+			}
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Parses the slice [start, end) of s as a double
+	 * 
+	 * @throws NumberFormatException
+	 *             if the slice does not contain a parsable double
+	 */
+	public static double parseDouble(final CharSequence s, final int start,
+			final int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end) {
+			char c = s.charAt(i);
+			if (c == '-' || c == '+') {
+				negative = c == '-';
+				i++;
+			}
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int significant = 0;
+		int exponent = 0;
+		boolean point = false;
+		for (; i < end; i++) {
+			char c = s.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits++;
+				if (significant > 0 || c != '0') {
+					if (++significant > MAX_EXACT_DIGITS) {
+						return fallback(s, start, end);
+					}
+					mantissa = mantissa * 10 + (c - '0');
+				}
+				if (point) {
+					exponent--;
+				}
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (digits == 0) {
+			return fallback(s, start, end);
+		}
+		if (i < end) {
+			char c = s.charAt(i);
+			if (c != 'e' && c != 'E') {
+				return fallback(s, start, end);
+			}
+			int explicit = 0;
+			boolean negativeExponent = false;
+			i++;
+			if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+				negativeExponent = s.charAt(i) == '-';
+				i++;
+			}
+			if (i == end) {
+				return fallback(s, start, end);
+			}
+			for (; i < end; i++) {
+				int digit = s.charAt(i) - '0';
+				if (digit < 0 || digit > 9 || explicit > 1000) {
+					return fallback(s, start, end);
+				}
+				explicit = explicit * 10 + digit;
+			}
+			exponent += negativeExponent ? -explicit : explicit;
+		}
+		double value;
+		if (mantissa == 0) {
+			value = 0.0;
+		} else if (exponent >= 0 && exponent <= MAX_EXACT_POWER) {
+			value = mantissa * POWERS_OF_TEN[exponent];
+		} else if (exponent < 0 && exponent >= -MAX_EXACT_POWER) {
+			value = mantissa / POWERS_OF_TEN[-exponent];
+		} else {
+			return fallback(s, start, end);
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses the slice [start, end) of s as a boolean, that is true if it is
+	 * equal, ignoring case, to "true"
+	 */
+	public static boolean parseBoolean(final CharSequence s, final int start,
+			final int end) {
+		if (end - start != TRUE.length()) {
+			return false;
+		}
+		for (int i = 0; i < TRUE.length(); i++) {
+			if (Character.toLowerCase(s.charAt(start + i)) != TRUE.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static double fallback(final CharSequence s, final int start,
+			final int end) {
+		return Double.parseDouble(s.subSequence(start, end).toString());
+	}
+
+	private static NumberFormatException invalid(final CharSequence s,
+			final int start, final int end) {
+		return new NumberFormatException("For input string: \""
+				+ s.subSequence(start, end) + "\"");
+	}
+}
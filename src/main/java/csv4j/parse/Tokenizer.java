@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.parse;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Splits csv lines into cells in a single pass, without regular expressions
+ * and without materializing the cells: cells are exposed as slices of the
+ * line (see {@link Cells}). The delimiter is matched literally and can be of
+ * any length. Like String.split with a negative limit, trailing empty cells
+ * are preserved, so a line with n unquoted delimiters always has n + 1 cells.
+ * 
+ * Cells starting with a double quote are quoted (RFC 4180): they may contain
+ * delimiters, line breaks and escaped ("") quotes. Quotes elsewhere are taken
+ * literally, so unquoted cells are scanned for the delimiter only.
+ * 
+ * Lines can be tokenized with a projection, i.e. the set of columns the
+ * caller needs. Other cells are skipped, by scanning for the next delimiter
+ * only: their bounds are neither recorded nor unescaped.
+ * 
+ * Tokenizers are thread-safe. Each thread reuses its own {@link Cells}
+ * buffer.
+ * 
+ * @author Yannis Theocharis
+ */
+public final class Tokenizer {
+
+	private static final char QUOTE = '"';
+
+	private final String delimiter;
+	private final char first;
+	private final ThreadLocal<Cells> buffers = ThreadLocal
+			.withInitial(Cells::new);
+
+	private Tokenizer(final String delimiter) {
+		this.delimiter = delimiter;
+		this.first = delimiter.charAt(0);
+	}
+
+	/**
+	 * Tokenizer factory
+	 * 
+	 * @param delimiter
+	 *            the non empty delimiter, which cannot contain quotes
+	 * @return tokenizer splitting lines at the given delimiter
+	 */
+	public static Tokenizer of(final String delimiter) {
+		Preconditions.checkNotNull(delimiter);
+		Preconditions.checkArgument(!delimiter.isEmpty(), "empty delimiter");
+		Preconditions.checkArgument(delimiter.indexOf(QUOTE) < 0,
+				"delimiter contains quote");
+		return new Tokenizer(delimiter);
+	}
+
+	/**
+	 * Tokenizes a line into the cells buffer of the calling thread. The
+	 * returned cells are only valid until the next call from the same thread.
+	 * 
+	 * @param line
+	 *            the csv line
+	 * @return the cells of the line
+	 */
+	public Cells tokenize(final CharSequence line) {
+		return tokenize(line, null);
+	}
+
+	/**
+	 * Tokenizes the projected cells of a line into the cells buffer of the
+	 * calling thread. The returned cells are only valid until the next call
+	 * from the same thread.
+	 * 
+	 * @param line
+	 *            the csv line
+	 * @param projection
+	 *            flags of the columns to tokenize, or null for all columns.
+	 *            Columns past its length are skipped.
+	 * @return the cells of the line, of which only the projected ones have
+	 *         bounds
+	 */
+	public Cells tokenize(final CharSequence line, final boolean[] projection) {
+		Cells cells = buffers.get();
+		cells.reset(line);
+		int length = line.length();
+		int start = 0;
+		for (int column = 0;; column++) {
+			boolean projected = projection == null
+					|| (column < projection.length && projection[column]);
+			int end;
+			if (start < length && line.charAt(start) == QUOTE) {
+				end = quoted(line, start, projected ? cells : null);
+			} else {
+				end = indexOfDelimiter(line, start);
+				if (projected) {
+					cells.add(start, end);
+				}
+			}
+			if (!projected) {
+				cells.skip();
+			}
+			if (end == length) {
+				return cells;
+			}
+			start = end + delimiter.length();
+		}
+	}
+
+	/**
+	 * Splits a line into materialized cells. Meant for header lines.
+	 * 
+	 * @param line
+	 *            the csv line
+	 * @return the cells of the line as strings
+	 */
+	public String[] split(final CharSequence line) {
+		return tokenize(line).toArray();
+	}
+
+	/**
+	 * Adds the quoted cell starting at start, unless cells is null
+	 * 
+	 * @return the end of the cell, i.e. the index of the following delimiter
+	 *         or the length of the line
+	 */
+	private int quoted(final CharSequence line, final int start,
+			final Cells cells) {
+		int length = line.length();
+		boolean escaped = false;
+		int i = start + 1;
+		while (true) {
+			while (i < length && line.charAt(i) != QUOTE) {
+				i++;
+			}
+			if (i + 1 < length && line.charAt(i + 1) == QUOTE) {
+				escaped = true;
+				i += 2;
+			} else {
+				break;
+			}
+		}
+		if (i >= length) {
+			// unterminated quote, the cell extends to the end of the line
+			if (cells != null) {
+				cells.addEscaped(start, length);
+			}
+			return length;
+		}
+		int end = i + 1;
+		if (end == length || isDelimiterAt(line, end)) {
+			if (cells != null && escaped) {
+				cells.addEscaped(start, end);
+			} else if (cells != null) {
+				cells.add(start + 1, i);
+			}
+			return end;
+		}
+		// text past the closing quote is appended to the value
+		end = indexOfDelimiter(line, end);
+		if (cells != null) {
+			cells.addEscaped(start, end);
+		}
+		return end;
+	}
+
+	private int indexOfDelimiter(final CharSequence line, final int from) {
+		int length = line.length();
+		if (delimiter.length() == 1) {
+			for (int i = from; i < length; i++) {
+				if (line.charAt(i) == first) {
+					return i;
+				}
+			}
+			return length;
+		}
+		int last = length - delimiter.length();
+		for (int i = from; i <= last; i++) {
+			if (line.charAt(i) == first && matches(line, i)) {
+				return i;
+			}
+		}
+		return length;
+	}
+
+	private boolean isDelimiterAt(final CharSequence line, final int at) {
+		return at + delimiter.length() <= line.length()
+				&& line.charAt(at) == first && matches(line, at);
+	}
+
+	private boolean matches(final CharSequence line, final int at) {
+		for (int j = 1; j < delimiter.length(); j++) {
+			if (line.charAt(at + j) != delimiter.charAt(j)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,375 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import csv4j.CsvHydrator;
+import csv4j.annotations.CsvDedup;
+import csv4j.annotations.CsvFields;
+
+/**
+ * Generates a {@link CsvHydrator} for every domain type with fields annotated
+ * with {@link CsvFields}. Generated hydrators call setters directly and parse
+ * int, long, double, boolean and String values inline, so hydration does not
+ * go through reflection. String fields annotated with {@link CsvDedup} are
+ * deduplicated through the same {@link csv4j.StringDedup} caches as at
+ * runtime.
+ * 
+ * Csv fields map to java fields as they do at runtime: through the
+ * annotations first, and through the names of the java fields otherwise.
+ * Types that cannot be hydrated without reflection (e.g. private setters,
+ * no accessible empty constructor) are reported and skipped, they keep being
+ * hydrated through reflection.
+ * 
+ * Hydrators that are already part of the compilation (e.g. generated sources
+ * fed back by an incremental build) are not generated again.
+ * 
+ * The processor is not registered as a service, it has to be enabled
+ * explicitly, e.g. with javac's -processor option.
+ * 
+ * @author Yannis Theocharis
+ */
+@SupportedAnnotationTypes("csv4j.annotations.CsvFields")
+public class CsvHydratorProcessor extends AbstractProcessor {
+
+	private static final String SET = "set";
+	private static final String NUMBERS = "csv4j.parse.Numbers";
+	private static final String SLICE = "(line, start, end)";
+	private static final String DEDUP = "DEDUP_";
+	private static final String OUT_OF_BOUNDS = "throw new "
+			+ "IndexOutOfBoundsException(String.valueOf(field));";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations,
+			final RoundEnvironment roundEnv) {
+		Set<TypeElement> types = new LinkedHashSet<>();
+		for (Element field : roundEnv
+				.getElementsAnnotatedWith(CsvFields.class)) {
+			types.add((TypeElement) field.getEnclosingElement());
+		}
+		for (TypeElement type : types) {
+			if (isGenerated(type)) {
+				continue;
+			}
+			String unsupported = unsupported(type);
+			if (unsupported != null) {
+				processingEnv.getMessager().printMessage(Kind.NOTE,
+						"no " + CsvHydrator.SUFFIX + " generated: "
+								+ unsupported, type);
+				continue;
+			}
+			try {
+				generate(type);
+			} catch (IOException e) {
+				processingEnv.getMessager().printMessage(Kind.ERROR,
+						e.toString(), type);
+			}
+		}
+		return false;
+	}
+
+	private boolean isGenerated(final TypeElement type) {
+		String name = processingEnv.getElementUtils().getBinaryName(type)
+				+ CsvHydrator.SUFFIX;
+		return processingEnv.getElementUtils().getTypeElement(name) != null;
+	}
+
+	/**
+	 * @return why the type cannot be hydrated without reflection, or null
+	 */
+	private String unsupported(final TypeElement type) {
+		for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e
+				.getEnclosingElement()) {
+			if (e.getModifiers().contains(Modifier.PRIVATE)) {
+				return "private type";
+			}
+		}
+		if (type.getKind() != ElementKind.CLASS
+				|| type.getModifiers().contains(Modifier.ABSTRACT)) {
+			return "not a concrete class";
+		}
+		if (type.getNestingKind() != NestingKind.TOP_LEVEL
+				&& !type.getModifiers().contains(Modifier.STATIC)) {
+			return "inner class";
+		}
+		if (!type.getTypeParameters().isEmpty()) {
+			return "generic type";
+		}
+		if (!hasEmptyConstructor(type)) {
+			return "no accessible empty constructor";
+		}
+		for (VariableElement field : fieldsOf(type)) {
+			if (setterOf(type, field) == null) {
+				return "no accessible setter for " + field.getSimpleName();
+			}
+		}
+		return null;
+	}
+
+	private static boolean hasEmptyConstructor(final TypeElement type) {
+		for (ExecutableElement c : ElementFilter.constructorsIn(type
+				.getEnclosedElements())) {
+			if (c.getParameters().isEmpty()
+					&& !c.getModifiers().contains(Modifier.PRIVATE)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static List<VariableElement> fieldsOf(final TypeElement type) {
+		List<VariableElement> fields = new ArrayList<>();
+		for (VariableElement field : ElementFilter.fieldsIn(type
+				.getEnclosedElements())) {
+			if (!field.getModifiers().contains(Modifier.STATIC)) {
+				fields.add(field);
+			}
+		}
+		return fields;
+	}
+
+	private ExecutableElement setterOf(final TypeElement type,
+			final VariableElement field) {
+		String name = field.getSimpleName().toString();
+		String setterName = SET + name.substring(0, 1).toUpperCase()
+				+ name.substring(1);
+		for (ExecutableElement m : ElementFilter.methodsIn(type
+				.getEnclosedElements())) {
+			if (m.getSimpleName().contentEquals(setterName)
+					&& m.getParameters().size() == 1
+					&& processingEnv.getTypeUtils().isSameType(
+							m.getParameters().get(0).asType(),
+							field.asType())
+					&& !m.getModifiers().contains(Modifier.PRIVATE)
+					&& !m.getModifiers().contains(Modifier.STATIC)) {
+				return m;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Maps csv fields to the indexes of the java fields, the same way
+	 * RichType does: annotations take precedence over java field names.
+	 */
+	private static Map<String, Integer> csvFieldsOf(
+			final List<VariableElement> fields) {
+		Map<String, Integer> csvFields = new LinkedHashMap<>();
+		for (int i = 0; i < fields.size(); i++) {
+			CsvFields annotation = fields.get(i).getAnnotation(CsvFields.class);
+			if (annotation != null) {
+				for (String csvField : annotation.value()) {
+					csvFields.put(csvField, i);
+				}
+			}
+		}
+		for (int i = 0; i < fields.size(); i++) {
+			csvFields.putIfAbsent(fields.get(i).getSimpleName().toString(), i);
+		}
+		return csvFields;
+	}
+
+	private void generate(final TypeElement type) throws IOException {
+		String packageName = processingEnv.getElementUtils()
+				.getPackageOf(type).getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils()
+				.getBinaryName(type).toString();
+		String simpleName = (packageName.isEmpty() ? binaryName : binaryName
+				.substring(packageName.length() + 1)) + CsvHydrator.SUFFIX;
+		String typeName = type.getQualifiedName().toString();
+		List<VariableElement> fields = fieldsOf(type);
+
+		try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+				.createSourceFile(binaryName + CsvHydrator.SUFFIX, type)
+				.openWriter())) {
+			if (!packageName.isEmpty()) {
+				out.println("package " + packageName + ";");
+				out.println();
+			}
+			out.println("/**");
+			out.println(" * Generated by " + getClass().getName()
+					+ ", do not edit");
+			out.println(" */");
+			out.println("public final class " + simpleName
+					+ " implements csv4j.CsvHydrator<" + typeName + "> {");
+			out.println();
+
+			for (int i = 0; i < fields.size(); i++) {
+				CsvDedup dedup = fields.get(i).getAnnotation(CsvDedup.class);
+				if (dedup != null && isString(fields.get(i))) {
+					out.println("\tprivate static final csv4j.StringDedup "
+							+ DEDUP + i + " = csv4j.StringDedup.of(");
+					out.println("\t\t\t" + typeName + ".class, "
+							+ processingEnv.getElementUtils()
+									.getConstantExpression(
+											fields.get(i).getSimpleName()
+													.toString()) + ", "
+							+ dedup.value() + ");");
+					out.println();
+				}
+			}
+
+			out.println("\t@Override");
+			out.println("\tpublic " + typeName + " newInstance() {");
+			out.println("\t\treturn new " + typeName + "();");
+			out.println("\t}");
+			out.println();
+
+			out.println("\t@Override");
+			out.println("\tpublic int fieldOf(String csvField) {");
+			out.println("\t\tswitch (csvField) {");
+			for (Map.Entry<String, Integer> e : csvFieldsOf(fields)
+					.entrySet()) {
+				out.println("\t\tcase "
+						+ processingEnv.getElementUtils()
+								.getConstantExpression(e.getKey()) + ":");
+				out.println("\t\t\treturn " + e.getValue() + ";");
+			}
+			out.println("\t\tdefault:");
+			out.println("\t\t\treturn -1;");
+			out.println("\t\t}");
+			out.println("\t}");
+			out.println();
+
+			out.println("\t@Override");
+			out.println("\tpublic Class<?> typeOf(int field) {");
+			out.println("\t\tswitch (field) {");
+			for (int i = 0; i < fields.size(); i++) {
+				out.println("\t\tcase " + i + ":");
+				out.println("\t\t\treturn " + erasure(fields.get(i))
+						+ ".class;");
+			}
+			out.println("\t\tdefault:");
+			out.println("\t\t\t" + OUT_OF_BOUNDS);
+			out.println("\t\t}");
+			out.println("\t}");
+			out.println();
+
+			out.println("\t@Override");
+			out.println("\tpublic void parse(" + typeName
+					+ " object, int field,");
+			out.println("\t\t\tCharSequence line, int start, int end) {");
+			out.println("\t\tswitch (field) {");
+			for (int i = 0; i < fields.size(); i++) {
+				String parsed = parsed(fields.get(i), i);
+				if (parsed != null) {
+					out.println("\t\tcase " + i + ":");
+					out.println("\t\t\tobject." + setterOf(type, fields.get(i))
+							.getSimpleName() + "(" + parsed + ");");
+					out.println("\t\t\treturn;");
+				}
+			}
+			out.println("\t\tdefault:");
+			out.println("\t\t\tthrow new IllegalArgumentException(\"field \" + field");
+			out.println("\t\t\t\t\t+ \" is not parsed\");");
+			out.println("\t\t}");
+			out.println("\t}");
+			out.println();
+
+			out.println("\t@Override");
+			out.println("\t@SuppressWarnings({ \"unchecked\", \"rawtypes\" })");
+			out.println("\tpublic void set(" + typeName
+					+ " object, int field, Object value) {");
+			out.println("\t\tswitch (field) {");
+			for (int i = 0; i < fields.size(); i++) {
+				out.println("\t\tcase " + i + ":");
+				out.println("\t\t\tobject." + setterOf(type, fields.get(i))
+						.getSimpleName() + "((" + boxedErasure(fields.get(i))
+						+ ") value);");
+				out.println("\t\t\treturn;");
+			}
+			out.println("\t\tdefault:");
+			out.println("\t\t\t" + OUT_OF_BOUNDS);
+			out.println("\t\t}");
+			out.println("\t}");
+			out.println("}");
+		}
+	}
+
+	/**
+	 * @return the expression parsing the value of the field from the slice of
+	 *         the line, or null if the field is not of a built-in type
+	 */
+	private static String parsed(final VariableElement field, final int i) {
+		TypeMirror type = field.asType();
+		switch (type.getKind()) {
+		case INT:
+			return NUMBERS + ".parseInt" + SLICE;
+		case LONG:
+			return NUMBERS + ".parseLong" + SLICE;
+		case DOUBLE:
+			return NUMBERS + ".parseDouble" + SLICE;
+		case BOOLEAN:
+			return NUMBERS + ".parseBoolean" + SLICE;
+		default:
+			if (!isString(field)) {
+				return null;
+			}
+			if (field.getAnnotation(CsvDedup.class) != null) {
+				return DEDUP + i + ".get" + SLICE;
+			}
+			return "line.subSequence(start, end).toString()";
+		}
+	}
+
+	private static boolean isString(final VariableElement field) {
+		return field.asType().toString().equals(String.class.getName());
+	}
+
+	private String erasure(final VariableElement field) {
+		return processingEnv.getTypeUtils().erasure(field.asType()).toString();
+	}
+
+	private String boxedErasure(final VariableElement field) {
+		TypeMirror type = field.asType();
+		if (type.getKind().isPrimitive()) {
+			return processingEnv.getTypeUtils()
+					.boxedClass(processingEnv.getTypeUtils()
+							.getPrimitiveType(type.getKind()))
+					.getQualifiedName().toString();
+		}
+		return erasure(field);
+	}
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import csv4j.ColumnBatch.DoubleColumn;
+import csv4j.ColumnBatch.IntColumn;
+import csv4j.ColumnBatch.StringColumn;
+
+public class ColumnBatchTest {
+
+	@DataProvider
+	Object[][] csvParams() {
+		return new Object[][] { { "data.csv" }, { "additionalField.csv" },
+				{ "missingColumsAndValues.csv" }, { "quoted.csv" } };
+	}
+
+	@Test(dataProvider = "csvParams")
+	public void columnsShouldMatchHydratedObjects(String csvFileName) {
+		Path p = toPath(csvFileName);
+		Hydrator<SimpleDomainType> hydrator = Hydrator
+				.of(SimpleDomainType.class);
+		List<SimpleDomainType> objects = hydrator.fromCSV(p);
+		ColumnBatch batch = hydrator.toColumns(p);
+
+		Assert.assertEquals(batch.size(), objects.size());
+		IntColumn field0 = batch.intColumn("field0");
+		StringColumn field1 = batch.stringColumn("field1");
+		DoubleColumn field2 = batch.doubleColumn("field2");
+		for (int row = 0; row < objects.size(); row++) {
+			SimpleDomainType object = objects.get(row);
+			Assert.assertEquals(field0.get(row), object.getField0());
+			Assert.assertEquals(field1.get(row), object.getField1());
+			Assert.assertEquals(field2.get(row), object.getField2());
+		}
+	}
+
+	@Test
+	public void shouldReadRequestedFieldsOnly() {
+		ColumnBatch batch = Hydrator.of(AnnotatedDomainType.class)
+				.toColumns(toPath("data.csv"), "att2");
+		Assert.assertEquals(batch.fields(), Arrays.asList("att2"));
+		Assert.assertEquals(batch.doubleColumn("att2").toArray(),
+				new double[] { 3.14, 2.71, 1.61, 1.41 });
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void fieldsNotInTheHeaderShouldBeRejected() {
+		Hydrator.of(SimpleDomainType.class).toColumns(toPath("data.csv"),
+				"field0", "field3");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void columnsShouldBeReadWithTheirType() {
+		Hydrator.of(SimpleDomainType.class).toColumns(toPath("data.csv"))
+				.intColumn("field2");
+	}
+
+	@Test
+	public void objectColumnsShouldHoldConvertedValues() {
+		ColumnBatch batch = Hydrator.of(ComplexDomainType.class).toColumns(
+				toPath("data.csv"), "field0");
+		Assert.assertEquals(
+				batch.objectColumn("field0", MyInt.class).get(3), new MyInt(3));
+	}
+
+	@Test
+	public void stringsShouldBeDictionaryEncoded() throws IOException {
+		StringBuilder csv = new StringBuilder("field0,field1,field2\n");
+		for (int i = 0; i < 5000; i++) {
+			csv.append(i).append(",v").append(i % 700).append(",\n");
+		}
+		csv.append("5000,,");
+		Path p = Files.createTempFile("columns", ".csv");
+		try {
+			Files.write(p, csv.toString().getBytes(StandardCharsets.UTF_8));
+			ColumnBatch batch = Hydrator.of(SimpleDomainType.class)
+					.toColumns(p);
+			StringColumn field1 = batch.stringColumn("field1");
+
+			Assert.assertEquals(batch.size(), 5001);
+			Assert.assertEquals(field1.dictionary().size(), 700);
+			for (int i = 0; i < 5000; i++) {
+				Assert.assertEquals(field1.get(i), "v" + i % 700);
+				Assert.assertEquals(field1.code(i), i % 700);
+			}
+			Assert.assertTrue(field1.isEmpty(5000));
+			Assert.assertNull(field1.get(5000));
+			Assert.assertEquals(field1.code(5000), -1);
+			Assert.assertTrue(batch.doubleColumn("field2").isEmpty(0));
+			Assert.assertEquals(batch.doubleColumn("field2").get(0), 0.0);
+			Assert.assertFalse(batch.intColumn("field0").isEmpty(5000));
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test
+	public void nonAsciiStringsShouldBeDictionaryEncoded() throws IOException {
+		StringBuilder csv = new StringBuilder("field0,field1,field2\n");
+		for (int i = 0; i < 100; i++) {
+			String value = i % 2 == 0 ? "Zürich" + i % 20 : "Bern";
+			csv.append(i).append(',').append(value).append(",\n");
+		}
+		Path p = Files.createTempFile("columns", ".csv");
+		try {
+			Files.write(p, csv.toString().getBytes(StandardCharsets.UTF_8));
+			StringColumn field1 = Hydrator.of(SimpleDomainType.class)
+					.toColumns(p).stringColumn("field1");
+
+			// enough distinct values to rehash the dictionary
+			Assert.assertEquals(field1.dictionary().size(), 11);
+			Assert.assertEquals(field1.dictionary().get(0), "Zürich0");
+			Assert.assertEquals(field1.dictionary().get(1), "Bern");
+			for (int i = 0; i < 100; i += 2) {
+				int j = i % 20;
+				Assert.assertEquals(field1.get(i), "Zürich" + j);
+				Assert.assertEquals(field1.code(i), j == 0 ? 0 : j / 2 + 1);
+				Assert.assertEquals(field1.get(i + 1), "Bern");
+				Assert.assertEquals(field1.code(i + 1), 1);
+			}
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	private Path toPath(String relativeFileName) {
+		String dataFilePath = this.getClass().getClassLoader()
+				.getResource(relativeFileName).getFile();
+		return new File(dataFilePath).toPath();
+	}
+}
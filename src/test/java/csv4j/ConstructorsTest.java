@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConstructorsTest {
+
+	@Test
+	public void shouldInstantiatePublicTypes() {
+		SimpleDomainType object = Constructors.of(SimpleDomainType.class).get();
+		Assert.assertEquals(object, new SimpleDomainType());
+	}
+
+	@Test
+	public void shouldInstantiateNonPublicTypes() {
+		Assert.assertNotNull(Constructors.of(NonPublicType.class).get());
+		Assert.assertNotNull(Constructors.of(
+				RichFieldTest.NonPublicType.class).get());
+	}
+
+	@Test(expectedExceptions = RuntimeException.class)
+	public void typesWithoutEmptyConstructorShouldFailOnInstantiation() {
+		Constructors.of(MyInt.class).get();
+	}
+
+	// private constructors of non-public types cannot be linked directly
+	static class NonPublicType {
+
+		private NonPublicType() {
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import csv4j.annotations.CsvDedup;
+import csv4j.annotations.CsvFields;
+
+/**
+ * Domain type to use in tests of {@link CsvDedup}, whose String field shares
+ * its repeated values.
+ * 
+ * @author Yannis Theocharis
+ */
+public class DedupDomainType {
+
+	// match currency with "ccy" csv field, share repeated values
+	@CsvFields({ "ccy" })
+	@CsvDedup(16)
+	private String currency;
+
+	// no annotation, so it will be match with "amount" csv field
+	private int amount;
+
+	// Necessary for csv4j
+	public DedupDomainType() {
+	}
+
+	// Setters are necessary for csv4j
+	public void setCurrency(String currency) {
+		this.currency = currency;
+	}
+
+	// Setters are necessary for csv4j
+	public void setAmount(int amount) {
+		this.amount = amount;
+	}
+
+	// Not necessary. Added for tests
+	public String getCurrency() {
+		return currency;
+	}
+
+	// Not necessary. Added for tests
+	public int getAmount() {
+		return amount;
+	}
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GeneratedPlanTest {
+
+	@Test
+	public void generatedHydratorsShouldBePickedUpWhenPresent() {
+		Assert.assertTrue(HydrationPlan.of(AnnotatedDomainType.class)
+				instanceof GeneratedPlan);
+		Assert.assertTrue(HydrationPlan.of(SimpleDomainType.class)
+				instanceof RichType);
+	}
+
+	@Test
+	public void shouldBindLikeRichType() {
+		String[] header = { "field3", "unknown", "field0", "field2", "att1" };
+		FieldSetter[] generated = HydrationPlan.of(AnnotatedDomainType.class)
+				.bind(header).setters();
+		FieldSetter[] reflective = RichType.of(AnnotatedDomainType.class)
+				.bind(header).setters();
+		Assert.assertEquals(generated.length, reflective.length);
+		for (int i = 0; i < header.length; i++) {
+			Assert.assertEquals(generated[i] == null, reflective[i] == null);
+		}
+
+		AnnotatedDomainType object = HydrationPlan.of(
+				AnnotatedDomainType.class).newInstance();
+		String line = "x,5,0.25";
+		generated[0].set(object, line, 0, 1);
+		generated[2].set(object, line, 2, 3);
+		generated[3].set(object, line, 4, 8);
+		Assert.assertEquals(object, AnnotatedDomainType.of(5, "x", 0.25));
+	}
+
+	@Test
+	public void registeredConverterShouldTakePrecedence() {
+		ValueConverters.register(double.class,
+				value -> Double.valueOf(value.replace(',', '.')));
+		try {
+			FieldSetter[] setters = HydrationPlan
+					.of(AnnotatedDomainType.class)
+					.bind(new String[] { "field2" }).setters();
+			AnnotatedDomainType object = new AnnotatedDomainType();
+			setters[0].set(object, "1,5", 0, 3);
+			Assert.assertEquals(object.getAtt2(), 1.5);
+		} finally {
+			ValueConverters.unregister(double.class);
+		}
+	}
+}
@@ -16,11 +16,28 @@
 
 package csv4j;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.mockito.Matchers;
 import org.mockito.Mockito;
@@ -28,7 +45,10 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import csv4j.io.CompressedDataFeed;
 import csv4j.io.DataFeed;
+import csv4j.io.DataFeedImpl;
+import csv4j.io.MappedDataFeed;
 
 public class HydratorTest {
 
@@ -118,6 +138,52 @@ public class HydratorTest {
 		Assert.assertEquals(actual, expected);
 	}
 
+	@Test
+	public void streamShouldReadFeedOnceStopEarlyAndCloseIt() {
+		List<String> lines = Arrays.asList("field0,field1,field2",
+				"0,csv,3.14", "1,4,2.71", "2,j,1.61", "3,is awesome,1.41");
+		AtomicInteger read = new AtomicInteger();
+		AtomicInteger closed = new AtomicInteger();
+		DataFeed dataFeed = Mockito.spy(DataFeed.class);
+		Mockito.when(dataFeed.lines(Matchers.any(Path.class))).thenAnswer(
+				invocation -> lines.stream()
+						.peek(line -> read.incrementAndGet())
+						.onClose(closed::incrementAndGet));
+
+		Hydrator<SimpleDomainType> hydrator = Hydrator.of(
+				SimpleDomainType.class, dataFeed);
+		Path p = Mockito.mock(Path.class);
+		try (Stream<SimpleDomainType> objects = hydrator.stream(p)) {
+			Assert.assertEquals(objects.findFirst().get(),
+					SimpleDomainType.of(0, "csv", 3.14));
+		}
+		Assert.assertTrue(read.get() < lines.size());
+		Assert.assertEquals(closed.get(), 1);
+		Mockito.verify(dataFeed, Mockito.times(1)).lines(p);
+	}
+
+	@Test
+	public void iteratorShouldCloseDataFeedWhenExhausted() {
+		AtomicInteger closed = new AtomicInteger();
+		DataFeed dataFeed = Mockito.spy(DataFeed.class);
+		Mockito.when(dataFeed.lines(Matchers.any(Path.class))).thenAnswer(
+				invocation -> Stream.of("field0,field1,field2", "0,csv,3.14",
+						"1,4,2.71").onClose(closed::incrementAndGet));
+
+		Hydrator<SimpleDomainType> hydrator = Hydrator.of(
+				SimpleDomainType.class, dataFeed);
+		Path p = Mockito.mock(Path.class);
+		try (CsvIterator<SimpleDomainType> objects = hydrator.iterator(p)) {
+			Assert.assertEquals(objects.next(),
+					SimpleDomainType.of(0, "csv", 3.14));
+			Assert.assertEquals(objects.next(),
+					SimpleDomainType.of(1, "4", 2.71));
+			Assert.assertFalse(objects.hasNext());
+			Assert.assertEquals(closed.get(), 1);
+		}
+		Assert.assertEquals(closed.get(), 1);
+	}
+
 	@DataProvider
 	Object[][] simpleCsvToExpected() {
 		return new Object[][] {
@@ -158,6 +224,118 @@ public class HydratorTest {
 		Assert.assertEquals(actual, expected);
 	}
 
+	@Test
+	public void quotedValues() {
+		Path p = toPath("quoted.csv");
+		Hydrator<SimpleDomainType> hydrator = Hydrator
+				.of(SimpleDomainType.class);
+		List<SimpleDomainType> actual = hydrator.fromCSV(p);
+		List<SimpleDomainType> expected = Arrays.asList(
+				SimpleDomainType.of(0, "csv, quoted", 3.14),
+				SimpleDomainType.of(1, "multi\r\nline", 2.71),
+				SimpleDomainType.of(2, "say \"hi\"", 1.61),
+				SimpleDomainType.of(3, "is awesome", 1.41));
+		Assert.assertEquals(actual, expected);
+	}
+
+	@Test
+	public void quotesWithinCellsShouldBeLiteral() throws IOException {
+		Path p = Files.createTempFile("quotes", ".csv");
+		try {
+			Files.write(p, "field0,field1,field2\n5,5\" screen,2\n6,x,1\n"
+					.getBytes(StandardCharsets.UTF_8));
+			List<SimpleDomainType> expected = Arrays.asList(
+					SimpleDomainType.of(5, "5\" screen", 2),
+					SimpleDomainType.of(6, "x", 1));
+			Hydrator<SimpleDomainType> hydrator = Hydrator
+					.of(SimpleDomainType.class);
+			Assert.assertEquals(hydrator.fromCSV(p), expected);
+			Assert.assertEquals(hydrator.fromCSVParallel(p, 2), expected);
+			Assert.assertEquals(Hydrator.of(SimpleDomainType.class,
+					new MappedDataFeed()).fromCSV(p), expected);
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@DataProvider
+	Object[][] byteFeeds() {
+		return new Object[][] { { new DataFeedImpl() },
+				{ new MappedDataFeed() } };
+	}
+
+	@Test(dataProvider = "byteFeeds")
+	public void escapedValuesShouldBeDecoded(DataFeed dataFeed)
+			throws IOException {
+		Path p = Files.createTempFile("escaped", ".csv");
+		try {
+			Files.write(p, "field0,field1,field2\n1,\"hé said \"\"hi\"\"\",2\n"
+					.getBytes(StandardCharsets.UTF_8));
+			Assert.assertEquals(Hydrator.of(SimpleDomainType.class, dataFeed)
+					.fromCSV(p), Arrays.asList(SimpleDomainType.of(1,
+					"hé said \"hi\"", 2)));
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@DataProvider
+	Object[][] doubleByteCharsets() {
+		// characters whose trailing byte is the one of '|'
+		return new Object[][] { { "GBK", "亅" }, { "Big5", "四" },
+				{ "Shift_JIS", "ポ" } };
+	}
+
+	@Test(dataProvider = "doubleByteCharsets")
+	public void doubleByteCharsetsShouldNotSplitCharacters(String name,
+			String value) throws IOException {
+		Charset charset = Charset.forName(name);
+		Path p = Files.createTempFile("charset", ".csv");
+		try {
+			Files.write(p, ("field0|field1|field2\n1|" + value + "|2\n")
+					.getBytes(charset));
+			Assert.assertEquals(Hydrator.of(SimpleDomainType.class,
+					new DataFeedImpl(charset), "|").fromCSV(p),
+					Arrays.asList(SimpleDomainType.of(1, value, 2)));
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test
+	public void parallelShouldReadTheCharsetOfTheFeed() throws IOException {
+		Path p = Files.createTempFile("latin1", ".csv");
+		try {
+			Files.write(p, "field0,field1,field2\n1,Zürich,2\n3,Genève,4\n"
+					.getBytes(StandardCharsets.ISO_8859_1));
+			List<SimpleDomainType> expected = Arrays.asList(
+					SimpleDomainType.of(1, "Zürich", 2),
+					SimpleDomainType.of(3, "Genève", 4));
+			for (DataFeed dataFeed : new DataFeed[] {
+					new DataFeedImpl(StandardCharsets.ISO_8859_1),
+					new MappedDataFeed(StandardCharsets.ISO_8859_1) }) {
+				Hydrator<SimpleDomainType> hydrator = Hydrator.of(
+						SimpleDomainType.class, dataFeed);
+				Assert.assertEquals(hydrator.fromCSV(p), expected);
+				Assert.assertEquals(hydrator.fromCSVParallel(p, 2), expected);
+			}
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void parallelShouldRejectCompressedFeeds() {
+		Hydrator.of(SimpleDomainType.class, new CompressedDataFeed())
+				.fromCSVParallel(toPath("data.csv"), 2);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void parallelShouldRejectNonAsciiDelimiters() {
+		Hydrator.of(SimpleDomainType.class, "→").fromCSVParallel(
+				toPath("data.csv"), 2);
+	}
+
 	@Test
 	public void complexDomainType() {
 		Path p = toPath("data.csv");
@@ -205,6 +383,263 @@ public class HydratorTest {
 		Assert.assertEquals(actual, expected);
 	}
 
+	@Test(dataProvider = "simpleCsvToExpected")
+	public void simpleDomainTypeParallel(String csvFileName,
+			List<SimpleDomainType> expected) {
+		Path p = toPath(csvFileName);
+		Hydrator<SimpleDomainType> hydrator = Hydrator
+				.of(SimpleDomainType.class);
+		List<SimpleDomainType> actual = hydrator.fromCSVParallel(p, 4);
+		Assert.assertEquals(actual, expected);
+	}
+
+	@Test(dataProvider = "simpleCsvToExpected")
+	public void simpleDomainTypeMapped(String csvFileName,
+			List<SimpleDomainType> expected) {
+		Path p = toPath(csvFileName);
+		Hydrator<SimpleDomainType> hydrator = Hydrator.of(
+				SimpleDomainType.class, new MappedDataFeed(
+						MappedDataFeed.MIN_WINDOW_SIZE));
+		List<SimpleDomainType> actual = hydrator.fromCSV(p);
+		Assert.assertEquals(actual, expected);
+	}
+
+	@Test(dataProvider = "simpleCsvToExpected")
+	public void factoryShouldSupplyHydratedObjects(String csvFileName,
+			List<SimpleDomainType> expected) {
+		Path p = toPath(csvFileName);
+		List<SimpleDomainType> supplied = new ArrayList<>();
+		Hydrator<SimpleDomainType> hydrator = Hydrator.of(
+				SimpleDomainType.class, () -> {
+					SimpleDomainType object = new SimpleDomainType();
+					supplied.add(object);
+					return object;
+				});
+		List<SimpleDomainType> actual = hydrator.fromCSV(p);
+		Assert.assertEquals(actual, expected);
+		Assert.assertEquals(supplied.size(), actual.size());
+		for (int i = 0; i < actual.size(); i++) {
+			Assert.assertSame(actual.get(i), supplied.get(i));
+		}
+	}
+
+	@Test(dataProvider = "simpleCsvToExpected")
+	public void forEachShouldVisitEveryObject(String csvFileName,
+			List<SimpleDomainType> expected) {
+		List<SimpleDomainType> actual = new ArrayList<>();
+		Hydrator.of(SimpleDomainType.class).forEach(toPath(csvFileName),
+				actual::add);
+		Assert.assertEquals(actual, expected);
+	}
+
+	@Test
+	public void forEachShouldReuseObjectAndResetEmptyCells()
+			throws IOException {
+		Path p = Files.createTempFile("reuse", ".csv");
+		try {
+			Files.write(p, "field1,field0,unknown,field2\n"
+					.concat("a,1,x,1.5\n").concat(",2,,\n")
+					.concat("c,,y,3.5\n").getBytes(StandardCharsets.UTF_8));
+			Set<SimpleDomainType> instances = Collections
+					.newSetFromMap(new IdentityHashMap<>());
+			List<SimpleDomainType> actual = new ArrayList<>();
+			Hydrator.of(SimpleDomainType.class,
+					() -> SimpleDomainType.of(-1, "none", 0.5)).forEach(
+					p,
+					object -> {
+						instances.add(object);
+						actual.add(SimpleDomainType.of(object.getField0(),
+								object.getField1(), object.getField2()));
+					}, true);
+
+			Assert.assertEquals(instances.size(), 1);
+			Assert.assertEquals(actual, Arrays.asList(
+					SimpleDomainType.of(1, "a", 1.5),
+					SimpleDomainType.of(2, "none", 0.5),
+					SimpleDomainType.of(-1, "c", 3.5)));
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test(dataProvider = "annotatedCsvToExpected")
+	public void forEachShouldReuseGeneratedTypes(String csvFileName,
+			List<AnnotatedDomainType> expected) {
+		List<AnnotatedDomainType> actual = new ArrayList<>();
+		Hydrator.of(AnnotatedDomainType.class).forEach(
+				toPath(csvFileName),
+				object -> actual.add(AnnotatedDomainType.of(
+						object.getField0(), object.getAtt1(),
+						object.getAtt2())), true);
+		Assert.assertEquals(actual, expected);
+	}
+
+	@DataProvider
+	Object[][] batchParams() {
+		return new Object[][] { { 1, Arrays.asList(1, 1, 1, 1) },
+				{ 3, Arrays.asList(3, 1) }, { 4, Arrays.asList(4) },
+				{ 100, Arrays.asList(4) } };
+	}
+
+	@Test(dataProvider = "batchParams")
+	public void batchesShouldHoldConsecutiveObjects(int batchSize,
+			List<Integer> expectedSizes) {
+		Hydrator<AnnotatedDomainType> hydrator = Hydrator
+				.of(AnnotatedDomainType.class);
+		for (int workers : new int[] { 0, 2 }) {
+			List<AnnotatedDomainType> actual = new ArrayList<>();
+			List<Integer> sizes = new ArrayList<>();
+			Consumer<List<AnnotatedDomainType>> action = batch -> {
+				sizes.add(batch.size());
+				actual.addAll(batch);
+			};
+			if (workers == 0) {
+				hydrator.forEachBatch(toPath("data.csv"), batchSize, action);
+			} else {
+				hydrator.forEachBatch(toPath("data.csv"), batchSize, workers,
+						action);
+			}
+			Assert.assertEquals(sizes, expectedSizes);
+			Assert.assertEquals(actual, ANNOTATED_EXPECTED);
+		}
+	}
+
+	@Test
+	public void parallelShouldMatchSequentialOnLargeFiles() throws IOException {
+		Path p = Files.createTempFile("large", ".csv");
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(p)) {
+				writer.write("field0,field1,field2\n");
+				for (int i = 0; i < 200000; i++) {
+					writer.write(i + ",\"value\n" + i + "\"," + i / 100.0
+							+ "\n");
+				}
+			}
+			Hydrator<SimpleDomainType> hydrator = Hydrator
+					.of(SimpleDomainType.class);
+			List<SimpleDomainType> expected = hydrator.fromCSV(p);
+			Assert.assertEquals(hydrator.fromCSVParallel(p, 4), expected);
+			try (Stream<SimpleDomainType> pipelined = hydrator
+					.streamPipelined(p, 4)) {
+				Assert.assertEquals(
+						pipelined.collect(Collectors.toList()), expected);
+			}
+			List<SimpleDomainType> batched = new ArrayList<>();
+			hydrator.forEachBatch(p, 1000, 4, batched::addAll);
+			Assert.assertEquals(batched, expected);
+
+			List<SimpleDomainType> unordered = new ArrayList<>(
+					hydrator.fromCSVParallel(p, 4, false));
+			unordered.sort(Comparator.comparingInt(SimpleDomainType::getField0));
+			Assert.assertEquals(unordered, expected);
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test(dataProvider = "annotatedCsvToExpected")
+	public void byteSourcesShouldMatchFiles(String csvFileName,
+			List<AnnotatedDomainType> expected) throws IOException {
+		Hydrator<AnnotatedDomainType> hydrator = Hydrator
+				.of(AnnotatedDomainType.class);
+		byte[] bytes = Files.readAllBytes(toPath(csvFileName));
+		CsvSource buffer = CsvSource.of(ByteBuffer.wrap(bytes));
+		Assert.assertEquals(hydrator.fromCSV(buffer), expected);
+		// buffers can be read again
+		Assert.assertEquals(hydrator.fromCSV(buffer), expected);
+		Assert.assertEquals(hydrator.fromCSV(CsvSource.of(bytes)), expected);
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream(
+				csvFileName)) {
+			Assert.assertEquals(hydrator.fromCSV(CsvSource.of(in)), expected);
+		}
+		Assert.assertEquals(Hydrator.of(AnnotatedDomainType.class,
+				new MappedDataFeed()).fromCSV(CsvSource.of(bytes)), expected);
+		Assert.assertEquals(Hydrator.of(AnnotatedDomainType.class,
+				p -> Stream.empty()).fromCSV(CsvSource.of(bytes)), expected);
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void streamSourcesShouldBeReadOnce() {
+		CsvSource source = CsvSource.of(new ByteArrayInputStream(
+				"field0\n1".getBytes(StandardCharsets.UTF_8)));
+		Hydrator<SimpleDomainType> hydrator = Hydrator
+				.of(SimpleDomainType.class);
+		Assert.assertEquals(hydrator.fromCSV(source).size(), 1);
+		hydrator.fromCSV(source);
+	}
+
+	private static Path directory(int files, int badFile) throws IOException {
+		Path dir = Files.createTempDirectory("parts");
+		for (int i = 0; i < files; i++) {
+			try (BufferedWriter writer = Files.newBufferedWriter(dir
+					.resolve("part-" + i + ".csv"))) {
+				writer.write("field0,field1,field2\n");
+				for (int j = 0; j < 10; j++) {
+					writer.write((i == badFile && j == 5 ? "x" : i * 10 + j)
+							+ ",part " + i + "," + j + "\n");
+				}
+			}
+		}
+		Files.write(dir.resolve("other.txt"), "field0\nx".getBytes());
+		return dir;
+	}
+
+	private static void delete(Path dir) throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			for (Path p : files.collect(Collectors.toList())) {
+				Files.delete(p);
+			}
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	public void directoriesShouldMergeMatchingFiles() throws IOException {
+		Path dir = directory(20, -1);
+		try (Stream<SimpleDomainType> objects = Hydrator.of(
+				SimpleDomainType.class).fromDirectory(dir, "part-*.csv")) {
+			List<SimpleDomainType> actual = new ArrayList<>(
+					objects.collect(Collectors.toList()));
+			actual.sort(Comparator.comparingInt(SimpleDomainType::getField0));
+			Assert.assertEquals(actual.size(), 200);
+			for (int i = 0; i < actual.size(); i++) {
+				Assert.assertEquals(actual.get(i), SimpleDomainType.of(i,
+						"part " + i / 10, i % 10));
+			}
+		} finally {
+			delete(dir);
+		}
+	}
+
+	@Test
+	public void failingFilesShouldNotStopOtherFiles() throws IOException {
+		Path dir = directory(20, 7);
+		try {
+			List<Path> failed = new ArrayList<>();
+			try (Stream<SimpleDomainType> objects = Hydrator.of(
+					SimpleDomainType.class).fromDirectory(dir, "*.csv", 3,
+					(p, e) -> failed.add(p.getFileName()))) {
+				Assert.assertEquals(objects.count(), 190);
+			}
+			Assert.assertEquals(failed,
+					Arrays.asList(Paths.get("part-7.csv")));
+
+			AtomicInteger count = new AtomicInteger();
+			try (Stream<SimpleDomainType> objects = Hydrator.of(
+					SimpleDomainType.class).fromDirectory(dir, "*.csv")) {
+				objects.forEach(object -> count.incrementAndGet());
+				Assert.fail();
+			} catch (RuntimeException e) {
+				Assert.assertEquals(e.getSuppressed().length, 1);
+				Assert.assertTrue(e.getSuppressed()[0].getMessage().endsWith(
+						"part-7.csv"));
+			}
+			Assert.assertEquals(count.get(), 190);
+		} finally {
+			delete(dir);
+		}
+	}
+
 	private Path toPath(String relativeFileName) {
 		String dataFilePath = this.getClass().getClassLoader()
 				.getResource(relativeFileName).getFile();
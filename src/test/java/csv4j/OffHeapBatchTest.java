@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import csv4j.parse.Tokenizer;
+
+public class OffHeapBatchTest {
+
+	@DataProvider
+	Object[][] csvParams() {
+		return new Object[][] { { "data.csv" }, { "data2.csv" },
+				{ "additionalField.csv" }, { "missingColumsAndValues.csv" },
+				{ "quoted.csv" } };
+	}
+
+	@Test(dataProvider = "csvParams")
+	public void rowsShouldHydrateLikeObjects(String csvFileName) {
+		Path p = toPath(csvFileName);
+		Hydrator<AnnotatedDomainType> hydrator = Hydrator
+				.of(AnnotatedDomainType.class);
+		List<AnnotatedDomainType> objects = hydrator.fromCSV(p);
+		OffHeapBatch<AnnotatedDomainType> batch = hydrator.toOffHeap(p);
+
+		Assert.assertEquals(batch.size(), objects.size());
+		OffHeapBatch<AnnotatedDomainType>.Row row = batch.row(0);
+		for (int i = 0; i < objects.size(); i++) {
+			Assert.assertEquals(row.at(i).toObject(), objects.get(i));
+		}
+	}
+
+	@Test
+	public void rowsShouldReadFieldsLazily() {
+		OffHeapBatch<ComplexDomainType> batch = Hydrator.of(
+				ComplexDomainType.class).toOffHeap(toPath("data.csv"));
+		OffHeapBatch<ComplexDomainType>.Row row = batch.row(3);
+
+		Assert.assertEquals(batch.fields(),
+				Arrays.asList("field0", "field1", "field2"));
+		Assert.assertEquals(row.get(batch.field("field0")), new MyInt(3));
+		Assert.assertEquals(row.getString(batch.field("field1")),
+				"is awesome");
+		Assert.assertEquals(row.getDouble(batch.field("field2")), 1.41);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void fieldsShouldBeReadWithTheirType() {
+		OffHeapBatch<SimpleDomainType> batch = Hydrator.of(
+				SimpleDomainType.class).toOffHeap(toPath("data.csv"));
+		batch.row(0).getLong(batch.field("field0"));
+	}
+
+	@Test
+	public void rowsShouldSpanSegments() {
+		Tokenizer tokenizer = Tokenizer.of(",");
+		RichType<SimpleDomainType> richType = RichType
+				.of(SimpleDomainType.class);
+		OffHeapBatch<SimpleDomainType> batch = OffHeapBatch.of(
+				SimpleDomainType::new, richType.richFieldsOf(new String[] {
+						"field2", "field1", "field0", "unknown" }), 64, 256);
+		for (int i = 0; i < 1000; i++) {
+			String value = i % 7 == 0 ? "" : i % 2 == 0 ? "\"v, " + i + "\""
+					: "αβ" + i;
+			batch.append(tokenizer.tokenize(i / 4.0 + "," + value + "," + i
+					+ ",x", batch.projection()));
+		}
+
+		Assert.assertEquals(batch.size(), 1000);
+		OffHeapBatch<SimpleDomainType>.Row row = batch.row(0);
+		int field1 = batch.field("field1");
+		for (int i = 0; i < 1000; i++) {
+			row.at(i);
+			String expected = i % 7 == 0 ? null : i % 2 == 0 ? "v, " + i
+					: "αβ" + i;
+			Assert.assertEquals(row.isEmpty(field1), expected == null);
+			Assert.assertEquals(row.getString(field1), expected);
+			Assert.assertEquals(row.toObject(),
+					SimpleDomainType.of(i, expected, i / 4.0));
+		}
+	}
+
+	@Test
+	public void smallFilesShouldReserveLittleDirectMemory() {
+		BufferPoolMXBean direct = ManagementFactory
+				.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+				.filter(pool -> pool.getName().equals("direct")).findAny()
+				.get();
+		long before = direct.getMemoryUsed();
+		OffHeapBatch<SimpleDomainType> batch = Hydrator.of(
+				SimpleDomainType.class).toOffHeap(toPath("data.csv"));
+
+		Assert.assertEquals(batch.size(), 4);
+		Assert.assertTrue(direct.getMemoryUsed() - before <= 2
+				* OffHeapBatch.MIN_SEGMENT_SIZE);
+	}
+
+	@Test
+	public void nonAsciiStringsShouldBeDecoded() throws IOException {
+		Path p = Files.createTempFile("offheap", ".csv");
+		try {
+			Files.write(p, "field0,field1,field2\n1,Zürich,1.5\n2,αβγ,2.5\n"
+					.getBytes(StandardCharsets.UTF_8));
+			OffHeapBatch<SimpleDomainType> batch = Hydrator.of(
+					SimpleDomainType.class).toOffHeap(p);
+			OffHeapBatch<SimpleDomainType>.Row row = batch.row(0);
+			int field1 = batch.field("field1");
+
+			Assert.assertEquals(row.getString(field1), "Zürich");
+			Assert.assertEquals(row.toObject(),
+					SimpleDomainType.of(1, "Zürich", 1.5));
+			Assert.assertEquals(row.at(1).getString(field1), "αβγ");
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	private Path toPath(String relativeFileName) {
+		String dataFilePath = this.getClass().getClassLoader()
+				.getResource(relativeFileName).getFile();
+		return new File(dataFilePath).toPath();
+	}
+}
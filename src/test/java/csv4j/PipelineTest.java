@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Preconditions;
+
+import csv4j.io.RecordCursor;
+
+public class PipelineTest {
+
+	private static RecordCursor records(final int n) {
+		return RecordCursor.of(IntStream.range(0, n).mapToObj(
+				String::valueOf));
+	}
+
+	private static List<Integer> parse(final List<CharSequence> lines) {
+		return lines.stream().map(line -> Integer.valueOf(line.toString()))
+				.collect(Collectors.toList());
+	}
+
+	@DataProvider
+	Object[][] pipelineParams() {
+		return new Object[][] { { 0, 1, 1 }, { 1, 1, 1 }, { 1000, 1, 7 },
+				{ 1000, 4, 3 }, { 10000, 8, 1024 } };
+	}
+
+	@Test(dataProvider = "pipelineParams")
+	public void outputShouldKeepInputOrder(int n, int workers, int batchSize) {
+		try (Stream<Integer> objects = new Pipeline<>(records(n), workers,
+				batchSize, PipelineTest::parse).stream()) {
+			Assert.assertEquals(objects.collect(Collectors.toList()),
+					IntStream.range(0, n).boxed().collect(Collectors.toList()));
+		}
+	}
+
+	@Test(expectedExceptions = NumberFormatException.class)
+	public void workerFailuresShouldBeRethrown() {
+		RecordCursor records = RecordCursor.of(Stream.of("1", "2", "x", "4"));
+		try (Stream<Integer> objects = new Pipeline<>(records, 2, 1,
+				PipelineTest::parse).stream()) {
+			objects.forEach(i -> Assert.assertTrue(i < 3));
+		}
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void readerFailuresShouldBeRethrown() {
+		RecordCursor records = RecordCursor.of(IntStream.range(0, 100)
+				.mapToObj(i -> {
+					Preconditions.checkState(i < 50);
+					return String.valueOf(i);
+				}));
+		try (Stream<Integer> objects = new Pipeline<>(records, 2, 8,
+				PipelineTest::parse).stream()) {
+			objects.count();
+		}
+	}
+
+	@Test(timeOut = 10000)
+	public void closingShouldStopReading() throws InterruptedException {
+		CountDownLatch closed = new CountDownLatch(1);
+		RecordCursor records = RecordCursor.of(Stream.iterate(0, i -> i + 1)
+				.map(String::valueOf).onClose(closed::countDown));
+		try (Stream<Integer> objects = new Pipeline<>(records, 2, 16,
+				PipelineTest::parse).stream()) {
+			Assert.assertEquals(objects.limit(100).count(), 100);
+		}
+		Assert.assertTrue(closed.await(5, TimeUnit.SECONDS));
+	}
+}
@@ -98,4 +98,34 @@ public class RichFieldTest {
 		Assert.assertEquals(object, expected);
 	}
 
+	@Test
+	public void shouldSetFieldsOfNonPublicTypes() throws NoSuchFieldException,
+			SecurityException {
+
+		NonPublicType object = new NonPublicType();
+		RichField.of(NonPublicType.class,
+				NonPublicType.class.getDeclaredField("count")).setField(
+				object, "12345678901");
+		RichField.of(NonPublicType.class,
+				NonPublicType.class.getDeclaredField("flag")).setField(
+				object, "true");
+
+		Assert.assertEquals(object.count, 12345678901L);
+		Assert.assertTrue(object.flag);
+	}
+
+	// setters of non-public types cannot be linked directly
+	static class NonPublicType {
+
+		private long count;
+		private boolean flag;
+
+		void setCount(long count) {
+			this.count = count;
+		}
+
+		void setFlag(boolean flag) {
+			this.flag = flag;
+		}
+	}
 }
\ No newline at end of file
@@ -53,4 +53,41 @@ public class RichTypeTest {
 		Assert.assertEquals(actualJavaFieldName, expectedJavaFieldName);
 	}
 
+	@Test
+	public void shouldResolveCsvFieldsByIndex() {
+		RichType<AnnotatedDomainType> richType = RichType
+				.of(AnnotatedDomainType.class);
+		RichField[] richFields = richType.richFieldsOf(new String[] {
+				"field3", "unknown", "field0", "field2", "" });
+
+		Assert.assertEquals(richFields.length, 5);
+		Assert.assertEquals(richFields[0].getField().getName(), "att1");
+		Assert.assertNull(richFields[1]);
+		Assert.assertEquals(richFields[2].getField().getName(), "field0");
+		Assert.assertEquals(richFields[3].getField().getName(), "att2");
+		Assert.assertNull(richFields[4]);
+	}
+
+	@Test
+	public void shouldBeCachedPerDomainType() {
+		Assert.assertSame(RichType.of(SimpleDomainType.class),
+				RichType.of(SimpleDomainType.class));
+		Assert.assertNotSame(RichType.of(SimpleDomainType.class),
+				RichType.of(AnnotatedDomainType.class));
+	}
+
+	@Test
+	public void shouldBeRecompiledWhenConvertersChange() {
+		RichType<SimpleDomainType> cached = RichType.of(SimpleDomainType.class);
+		ValueConverters.register(String.class, String::trim);
+		try {
+			RichType<SimpleDomainType> recompiled = RichType
+					.of(SimpleDomainType.class);
+			Assert.assertNotSame(recompiled, cached);
+			Assert.assertSame(RichType.of(SimpleDomainType.class), recompiled);
+		} finally {
+			ValueConverters.unregister(String.class);
+		}
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import csv4j.parse.Cells;
+import csv4j.parse.Tokenizer;
+
+public class RowBindersTest {
+
+	@DataProvider
+	Object[][] widthParams() {
+		return new Object[][] { { 1 }, { 7 }, { 200 }, { 300 }, { 1000 } };
+	}
+
+	@Test(dataProvider = "widthParams")
+	public void shouldSetBoundColumnsInOrder(int width) {
+		List<String> set = new ArrayList<>();
+		FieldSetter[] setters = new FieldSetter[width];
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < width; i++) {
+			if (i % 3 != 1) {
+				setters[i] = (object, l, start, end) -> set.add(l.subSequence(
+						start, end).toString());
+			}
+			// every 5th cell is empty, hence not set
+			line.append(i == 0 ? "" : ",").append(i % 5 == 4 ? "" : "c" + i);
+		}
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < width; i++) {
+			if (i % 3 != 1 && i % 5 != 4) {
+				expected.add("c" + i);
+			}
+		}
+
+		Cells cells = Tokenizer.of(",").tokenize(line);
+		RowBinder binder = RowBinders.of(setters);
+		binder.bind(new Object(), cells);
+		Assert.assertEquals(set, expected);
+
+		set.clear();
+		RowBinders.looping(setters).bind(new Object(), cells);
+		Assert.assertEquals(set, expected);
+	}
+
+	@Test
+	public void bindersShouldBeGeneratedWhereClassesCanBeDefined() {
+		boolean java8 = System.getProperty("java.specification.version")
+				.startsWith("1.");
+		FieldSetter setter = (object, line, start, end) -> {
+		};
+		Assert.assertEquals(RowBinders.isGenerated(RowBinders
+				.of(new FieldSetter[] { setter, null, setter })), !java8);
+		Assert.assertFalse(RowBinders.isGenerated(RowBinders
+				.looping(new FieldSetter[] { setter })));
+	}
+
+	@Test
+	public void onlyCachedBindingsShouldBeGenerated() {
+		boolean java8 = System.getProperty("java.specification.version")
+				.startsWith("1.");
+		FieldSetter setter = (object, line, start, end) -> {
+		};
+		BindingCache cache = new BindingCache(csvFields -> ColumnBinding
+				.of(new FieldSetter[] { setter }));
+		for (int i = 0; i < 64; i++) {
+			ColumnBinding binding = cache.get(new String[] { "c" + i });
+			Assert.assertEquals(RowBinders.isGenerated(binding.binder()),
+					!java8);
+		}
+		ColumnBinding uncached = cache.get(new String[] { "c64" });
+		Assert.assertNotSame(cache.get(new String[] { "c64" }), uncached);
+		Assert.assertFalse(RowBinders.isGenerated(uncached.binder()));
+	}
+
+	@Test
+	public void bindingsShouldBeCachedPerHeader() {
+		String[] header = { "field0", "unknown", "field2" };
+		ColumnBinding binding = RichType.of(SimpleDomainType.class).bind(
+				header);
+		Assert.assertSame(RichType.of(SimpleDomainType.class).bind(
+				header.clone()), binding);
+		Assert.assertNotSame(RichType.of(SimpleDomainType.class).bind(
+				new String[] { "field0", "field2" }), binding);
+		Assert.assertSame(HydrationPlan.of(AnnotatedDomainType.class).bind(
+				header), HydrationPlan.of(AnnotatedDomainType.class).bind(
+				header.clone()));
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import csv4j.io.DataFeedImpl;
+
+public class StringDedupTest {
+
+	@Test
+	public void repeatedValuesShouldBeShared() {
+		StringDedup dedup = StringDedup.of(StringDedupTest.class, "shared", 8);
+		String line = "EUR,USD,EUR";
+		String first = dedup.get(line, 0, 3);
+		Assert.assertEquals(first, "EUR");
+		Assert.assertEquals(dedup.get(line, 4, 7), "USD");
+		Assert.assertSame(dedup.get(line, 8, 11), first);
+		Assert.assertEquals(dedup.hits(), 1);
+		Assert.assertEquals(dedup.misses(), 2);
+		Assert.assertSame(StringDedup.of(StringDedupTest.class, "shared", 8),
+				dedup);
+	}
+
+	@DataProvider(name = "sizes")
+	public Object[][] sizes() {
+		return new Object[][] { { 1, 2 }, { 2, 2 }, { 3, 4 }, { 1000, 1024 },
+				{ 1024, 1024 } };
+	}
+
+	@Test(dataProvider = "sizes")
+	public void sizeShouldBeRoundedUpToPowerOfTwo(int size, int expected) {
+		Assert.assertEquals(
+				StringDedup.of(StringDedupTest.class, "size" + size, size)
+						.size(), expected);
+	}
+
+	@Test
+	public void highCardinalityShouldDisableCache() {
+		StringDedup dedup = StringDedup.of(StringDedupTest.class, "unique", 4);
+		for (int i = 0; i < 10_000; i++) {
+			String value = String.valueOf(i);
+			Assert.assertEquals(dedup.get(value, 0, value.length()), value);
+		}
+		Assert.assertTrue(dedup.isDisabled());
+		Assert.assertTrue(dedup.hitRate() < StringDedup.MIN_HIT_RATE);
+		long misses = dedup.misses();
+		Assert.assertEquals(dedup.get("a", 0, 1), "a");
+		Assert.assertEquals(dedup.misses(), misses);
+	}
+
+	@Test
+	public void lowCardinalityShouldKeepCache() {
+		StringDedup dedup = StringDedup.of(StringDedupTest.class, "few", 16);
+		for (int i = 0; i < 10_000; i++) {
+			String value = "v" + i % 10;
+			Assert.assertEquals(dedup.get(value, 0, value.length()), value);
+		}
+		Assert.assertFalse(dedup.isDisabled());
+		Assert.assertTrue(dedup.hitRate() > 0.9);
+	}
+
+	@Test
+	public void annotatedFieldsShouldBeDeduplicated() {
+		String line = "abc,abc";
+		for (HydrationPlan<DedupDomainType> plan : new HydrationPlan[] {
+				RichType.of(DedupDomainType.class),
+				HydrationPlan.of(DedupDomainType.class) }) {
+			FieldSetter setter = plan.bind(new String[] { "ccy" })
+					.setters()[0];
+			DedupDomainType first = plan.newInstance();
+			DedupDomainType second = plan.newInstance();
+			setter.set(first, line, 0, 3);
+			setter.set(second, line, 4, 7);
+			Assert.assertEquals(first.getCurrency(), "abc");
+			Assert.assertSame(second.getCurrency(), first.getCurrency());
+		}
+		Assert.assertTrue(Hydrator.of(DedupDomainType.class).dedupStats()
+				.get("currency").hits() >= 2);
+	}
+
+	@Test
+	public void nonAsciiValuesShouldBeDeduplicated() throws IOException {
+		Path p = Files.createTempFile("dedup", ".csv");
+		try {
+			Files.write(p, "ccy,amount\n€,1\n€,2\nZł,3\nZł,4\n"
+					.getBytes(StandardCharsets.UTF_8));
+			List<DedupDomainType> objects = Hydrator.of(
+					DedupDomainType.class, new DataFeedImpl()).fromCSV(p);
+			Assert.assertEquals(objects.get(0).getCurrency(), "€");
+			Assert.assertSame(objects.get(1).getCurrency(), objects.get(0)
+					.getCurrency());
+			Assert.assertEquals(objects.get(2).getCurrency(), "Zł");
+			Assert.assertSame(objects.get(3).getCurrency(), objects.get(2)
+					.getCurrency());
+		} finally {
+			Files.delete(p);
+		}
+	}
+}
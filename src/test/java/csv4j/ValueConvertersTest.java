@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j;
+
+import java.lang.reflect.Field;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class ValueConvertersTest {
+
+	@DataProvider
+	Object[][] builtInParams() {
+		return new Object[][] {
+
+		{ String.class, "abc", "abc" }, { int.class, "5", 5 },
+				{ Integer.class, "-5", -5 }, { long.class, "5", 5L },
+				{ double.class, "1.234", 1.234 },
+				{ Boolean.class, "true", true }, { byte.class, "7", (byte) 7 },
+				{ MyInt.class, "5", new MyInt(5) },
+
+		};
+	}
+
+	@Test(dataProvider = "builtInParams")
+	public void shouldConvertBuiltInAndValueOfTypes(Class<?> type,
+			String value, Object expected) {
+		Object actual = ValueConverters.converterFor(type).convert(value);
+		Assert.assertEquals(actual, expected);
+	}
+
+	@Test(expectedExceptions = RuntimeException.class)
+	public void typesWithoutValueOfShouldFailOnConversion() {
+		ValueConverter<?> converter = ValueConverters
+				.converterFor(ValueConvertersTest.class);
+		converter.convert("abc");
+	}
+
+	@Test
+	public void registeredConverterShouldTakePrecedence()
+			throws NoSuchFieldException, SecurityException {
+		ValueConverters.register(MyInt.class,
+				value -> new MyInt(Integer.parseInt(value, 16)));
+		ValueConverters.register(double.class,
+				value -> Double.valueOf(value.replace(',', '.')));
+		try {
+			ComplexDomainType object = new ComplexDomainType();
+			for (String[] fieldToValue : new String[][] { { "field0", "ff" },
+					{ "field2", "1,5" } }) {
+				Field field = ComplexDomainType.class
+						.getDeclaredField(fieldToValue[0]);
+				RichField.of(ComplexDomainType.class, field).setField(object,
+						fieldToValue[1]);
+			}
+			Assert.assertEquals(object,
+					ComplexDomainType.of(new MyInt(255), null, 1.5));
+		} finally {
+			ValueConverters.unregister(MyInt.class);
+			ValueConverters.unregister(double.class);
+		}
+	}
+}
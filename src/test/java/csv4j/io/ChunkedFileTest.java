@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class ChunkedFileTest {
+
+	@DataProvider
+	Object[][] chunkParams() {
+		return new Object[][] { { 1 }, { 2 }, { 7 }, { 64 }, { 1000 } };
+	}
+
+	@Test(dataProvider = "chunkParams")
+	public void chunksShouldContainAllRecordsOnce(int chunks)
+			throws IOException {
+		StringBuilder csv = new StringBuilder("h0,\"h\n1\"\r\n");
+		for (int i = 0; i < 500; i++) {
+			csv.append(i).append(',');
+			if (i % 3 == 0) {
+				csv.append("\"a, \"\"quoted\"\"\r\nvalue ").append(i)
+						.append('"');
+			} else if (i % 3 == 1) {
+				csv.append(i).append("\" screen");
+			} else {
+				csv.append("plain ").append(i);
+			}
+			csv.append(i % 2 == 0 ? "\n" : "\r\n");
+		}
+		Path p = Files.createTempFile("chunked", ".csv");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Files.write(p, csv.toString().getBytes(StandardCharsets.UTF_8));
+			List<String> expected = new RecordReader(new StringReader(
+					csv.toString())).stream().collect(Collectors.toList());
+
+			try (ChunkedFile file = ChunkedFile.open(p)) {
+				Assert.assertEquals(file.header(), expected.get(0));
+				long[] boundaries = file.split(chunks, 1, executor);
+				List<String> actual = new ArrayList<>();
+				actual.add(file.header());
+				for (int i = 0; i < boundaries.length - 1; i++) {
+					Assert.assertTrue(boundaries[i] <= boundaries[i + 1]);
+					try (Stream<String> records = file.records(boundaries[i],
+							boundaries[i + 1]).stream()) {
+						records.forEach(actual::add);
+					}
+				}
+				Assert.assertEquals(actual, expected);
+			}
+		} finally {
+			executor.shutdown();
+			Files.delete(p);
+		}
+	}
+
+	@DataProvider
+	Object[][] delimiterParams() {
+		return new Object[][] { { "," }, { "||" }, { "|,|" } };
+	}
+
+	@Test(dataProvider = "delimiterParams")
+	public void transitionsShouldMatchScansFromEveryState(String delimiter)
+			throws IOException {
+		StringBuilder csv = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			csv.append(i).append(delimiter);
+			if (i % 5 == 0) {
+				csv.append("\"a").append(delimiter).append("\"\"b\n\"");
+			} else if (i % 5 == 1) {
+				csv.append(i).append("\" screen|");
+			} else {
+				csv.append("plain ").append(i);
+			}
+			csv.append(i % 2 == 0 ? "\n" : "\r\n");
+		}
+		byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+		Path p = Files.createTempFile("chunked", ".csv");
+		try {
+			Files.write(p, bytes);
+			try (ChunkedFile file = ChunkedFile.open(p,
+					StandardCharsets.UTF_8, delimiter)) {
+				for (int from = 0; from < bytes.length; from += 7919) {
+					int to = Math.min(bytes.length, from + 20000);
+					int[] transitions = file.transitions(from, to);
+					for (int state = 0; state < transitions.length; state++) {
+						QuoteScanner scanner = new QuoteScanner(delimiter);
+						scanner.state(state);
+						for (int i = from; i < to; i++) {
+							scanner.next((char) (bytes[i] & 0xff));
+						}
+						Assert.assertEquals(transitions[state],
+								scanner.state());
+					}
+				}
+			}
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test
+	public void emptyFileShouldHaveNoHeader() throws IOException {
+		Path p = Files.createTempFile("chunked", ".csv");
+		try (ChunkedFile file = ChunkedFile.open(p)) {
+			Assert.assertNull(file.header());
+		} finally {
+			Files.delete(p);
+		}
+	}
+}
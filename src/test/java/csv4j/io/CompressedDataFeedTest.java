@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class CompressedDataFeedTest {
+
+	private static final String CSV = "field0,field1\r\n"
+			+ "0,\"multi\r\nline, quoted\"\n" + "1,café ☃\r" + "\n"
+			+ "2,last";
+
+	private static byte[] gzip(final String s) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(s.getBytes(StandardCharsets.UTF_8));
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] concat(final byte[] a, final byte[] b) {
+		byte[] c = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, c, a.length, b.length);
+		return c;
+	}
+
+	@DataProvider
+	Object[][] files() throws IOException {
+		int half = CSV.indexOf('1', 20);
+		return new Object[][] {
+				{ CSV.getBytes(StandardCharsets.UTF_8) },
+				{ gzip(CSV) },
+				{ concat(gzip(CSV.substring(0, half)),
+						gzip(CSV.substring(half))) } };
+	}
+
+	@Test(dataProvider = "files")
+	public void shouldReadSameRecordsAsRecordReader(byte[] content)
+			throws IOException {
+		Path p = Files.createTempFile("compressed", ".csv");
+		try {
+			Files.write(p, content);
+			List<String> expected = new RecordReader(new StringReader(CSV))
+					.stream().collect(Collectors.toList());
+
+			List<String> actual = new ArrayList<>();
+			try (RecordCursor records = new CompressedDataFeed().records(p)) {
+				while (records.next()) {
+					actual.add(records.record().toString());
+				}
+			}
+			Assert.assertEquals(actual, expected);
+			Assert.assertEquals(new CompressedDataFeed().lines(p)
+					.collect(Collectors.toList()), expected);
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test
+	public void largeFilesShouldBeReadAhead() throws IOException {
+		StringBuilder csv = new StringBuilder("field0\n");
+		for (int i = 0; i < 200_000; i++) {
+			csv.append(i).append('\n');
+		}
+		Path p = Files.createTempFile("compressed", ".csv.gz");
+		try {
+			Files.write(p, gzip(csv.toString()));
+			long count = 0;
+			try (RecordCursor records = new CompressedDataFeed().records(p)) {
+				while (records.next()) {
+					count++;
+				}
+			}
+			Assert.assertEquals(count, 200_001);
+			// closing early stops the background thread
+			try (RecordCursor records = new CompressedDataFeed().records(p)) {
+				Assert.assertTrue(records.next());
+			}
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@DataProvider
+	Object[][] unsupported() {
+		return new Object[][] { { new byte[] { 'B', 'Z', 'h', '9' } },
+				{ new byte[] { 0x28, (byte) 0xb5, 0x2f, (byte) 0xfd } } };
+	}
+
+	@Test(dataProvider = "unsupported",
+			expectedExceptions = IllegalArgumentException.class)
+	public void unsupportedCompressionShouldBeRejected(byte[] magic)
+			throws IOException {
+		Path p = Files.createTempFile("compressed", ".csv");
+		try {
+			Files.write(p, concat(magic, new byte[16]));
+			new CompressedDataFeed().records(p);
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test(timeOut = 10_000)
+	public void readerErrorsShouldReachTheConsumer() throws IOException {
+		InputStream in = new InputStream() {
+			private int read;
+
+			@Override
+			public int read() {
+				if (read++ == 100_000) {
+					throw new IllegalStateException("decompressor bug");
+				}
+				return 'x';
+			}
+		};
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		try (ReadAheadChannel channel = new ReadAheadChannel(in, 1024, 4)) {
+			while (channel.read(buffer) >= 0) {
+				buffer.clear();
+			}
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			Assert.assertEquals(e.getMessage(), "decompressor bug");
+		}
+	}
+
+	@Test
+	public void corruptInputShouldFailTheReader() throws IOException {
+		byte[] content = gzip(CSV);
+		Path p = Files.createTempFile("compressed", ".csv.gz");
+		try {
+			Files.write(p, Arrays.copyOf(content, content.length - 8));
+			try (RecordCursor records = new CompressedDataFeed().records(p)) {
+				while (records.next()) {
+				}
+				Assert.fail();
+			} catch (RuntimeException e) {
+				Assert.assertTrue(e.getCause() instanceof IOException);
+			}
+		} finally {
+			Files.delete(p);
+		}
+	}
+}
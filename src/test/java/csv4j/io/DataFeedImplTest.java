@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class DataFeedImplTest {
+
+	private static final String CSV = "field0,field1\r\n"
+			+ "0,\"multi\r\nline, quoted\"\n" + "1,café\r" + "2,plain\n\n"
+			+ "3,last";
+
+	@DataProvider
+	Object[][] charsetParams() {
+		return new Object[][] { { StandardCharsets.UTF_8 },
+				{ StandardCharsets.ISO_8859_1 }, { StandardCharsets.UTF_16 } };
+	}
+
+	@Test(dataProvider = "charsetParams")
+	public void recordsShouldMatchLines(Charset charset) throws IOException {
+		Path p = Files.createTempFile("feed", ".csv");
+		try {
+			Files.write(p, CSV.getBytes(charset));
+			DataFeedImpl dataFeed = new DataFeedImpl(charset);
+			List<String> lines = dataFeed.lines(p).collect(
+					Collectors.toList());
+			Assert.assertEquals(lines, Arrays.asList("field0,field1",
+					"0,\"multi\r\nline, quoted\"", "1,café", "2,plain", "",
+					"3,last"));
+
+			List<String> records = new ArrayList<>();
+			List<CharSequence> copies = new ArrayList<>();
+			try (RecordCursor cursor = dataFeed.records(p)) {
+				while (cursor.next()) {
+					records.add(cursor.record().toString());
+					copies.add(cursor.copyRecord());
+				}
+			}
+			Assert.assertEquals(records, lines);
+			// copies outlive the buffers of the cursor
+			Assert.assertEquals(copies.stream().map(CharSequence::toString)
+					.collect(Collectors.toList()), lines);
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test
+	public void recordsShouldGrowPastBufferSize() throws IOException {
+		StringBuilder large = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			large.append((char) ('a' + i % 26));
+		}
+		Path p = Files.createTempFile("feed", ".csv");
+		try {
+			Files.write(p, ("h\n" + large + "\r\nt").getBytes(
+					StandardCharsets.UTF_8));
+			try (RecordCursor cursor = new DataFeedImpl().records(p)) {
+				Assert.assertTrue(cursor.next());
+				Assert.assertEquals(cursor.record().toString(), "h");
+				Assert.assertTrue(cursor.next());
+				Assert.assertEquals(cursor.record().toString(),
+						large.toString());
+				Assert.assertTrue(cursor.next());
+				Assert.assertEquals(cursor.record().toString(), "t");
+				Assert.assertFalse(cursor.next());
+			}
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test
+	public void asciiCompatibilityShouldBeDetected() {
+		Assert.assertTrue(ByteSequence
+				.isAsciiCompatible(StandardCharsets.UTF_8));
+		Assert.assertTrue(ByteSequence
+				.isAsciiCompatible(StandardCharsets.US_ASCII));
+		Assert.assertFalse(ByteSequence
+				.isAsciiCompatible(StandardCharsets.UTF_16LE));
+		Assert.assertTrue(ByteSequence
+				.isAsciiCompatible(StandardCharsets.ISO_8859_1));
+		Assert.assertTrue(ByteSequence.isAsciiCompatible(Charset
+				.forName("windows-1252")));
+	}
+
+	@Test
+	public void charsetsWithAsciiTrailingBytesShouldBeRejected() {
+		for (String name : new String[] { "GBK", "Big5", "Shift_JIS" }) {
+			Assert.assertFalse(ByteSequence.isAsciiCompatible(Charset
+					.forName(name)));
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class MappedDataFeedTest {
+
+	private static final String CSV = "field0,field1\r\n"
+			+ "0,\"multi\r\nline, quoted\"\n" + "1,café ☃\r"
+			+ "2,\"a \"\"very\"\" long value spanning windows\"\n" + "\n"
+			+ "3,last";
+
+	/**
+	 * @return records spanning several windows of the minimum size, and
+	 *         records across their boundaries
+	 */
+	private static String largeCsv() {
+		StringBuilder csv = new StringBuilder(CSV).append('\n');
+		for (int i = 0; i < 20_000; i++) {
+			csv.append(i).append(",\"v\r\n").append(i).append("\"\n");
+		}
+		csv.append("x,\"");
+		for (int i = 0; i < 3 * MappedDataFeed.MIN_WINDOW_SIZE; i++) {
+			csv.append((char) ('a' + i % 26));
+		}
+		return csv.append("\"\r\n").append(CSV).toString();
+	}
+
+	@DataProvider
+	Object[][] windowParams() {
+		int min = MappedDataFeed.MIN_WINDOW_SIZE;
+		return new Object[][] { { min }, { min + 7 }, { 1 << 20 } };
+	}
+
+	@Test(dataProvider = "windowParams")
+	public void shouldReadSameRecordsAsRecordReader(int windowSize)
+			throws IOException {
+		String csv = largeCsv();
+		Path p = Files.createTempFile("mapped", ".csv");
+		try {
+			Files.write(p, csv.getBytes(StandardCharsets.UTF_8));
+			List<String> expected = new RecordReader(new StringReader(csv))
+					.stream().collect(Collectors.toList());
+
+			List<String> actual = new ArrayList<>();
+			try (RecordCursor records = new MappedDataFeed(windowSize)
+					.records(p)) {
+				while (records.next()) {
+					actual.add(records.record().toString());
+				}
+			}
+			Assert.assertEquals(actual, expected);
+			Assert.assertEquals(new MappedDataFeed(windowSize).lines(p)
+					.collect(Collectors.toList()), expected);
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void smallWindowsShouldBeRejected() {
+		// every window is a mapping, unmapped only by the garbage collector
+		new MappedDataFeed(MappedDataFeed.MIN_WINDOW_SIZE - 1);
+	}
+
+	@Test
+	public void recordsShouldBeViewsOverBytes() throws IOException {
+		Path p = Files.createTempFile("mapped", ".csv");
+		try {
+			Files.write(p, "12,café".getBytes(StandardCharsets.UTF_8));
+			try (RecordCursor records = new MappedDataFeed().records(p)) {
+				Assert.assertTrue(records.next());
+				CharSequence record = records.record();
+				Assert.assertFalse(record instanceof String);
+				Assert.assertEquals(record.charAt(2), ',');
+				Assert.assertEquals(record.subSequence(3, record.length())
+						.toString(), "café");
+				Assert.assertFalse(records.next());
+			}
+		} finally {
+			Files.delete(p);
+		}
+	}
+
+	@Test
+	public void emptyFileShouldHaveNoRecords() throws IOException {
+		Path p = Files.createTempFile("mapped", ".csv");
+		try (RecordCursor records = new MappedDataFeed().records(p)) {
+			Assert.assertFalse(records.next());
+		} finally {
+			Files.delete(p);
+		}
+	}
+}
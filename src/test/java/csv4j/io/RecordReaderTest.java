@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class RecordReaderTest {
+
+	@DataProvider
+	Object[][] recordParams() {
+		return new Object[][] {
+
+				{ "", Arrays.asList() },
+				{ "a,b", Arrays.asList("a,b") },
+				{ "a,b\n", Arrays.asList("a,b") },
+				{ "a\nb\r\nc\rd", Arrays.asList("a", "b", "c", "d") },
+				{ "a\n\nb\n", Arrays.asList("a", "", "b") },
+				{ "\"a\nb\",c\r\nd", Arrays.asList("\"a\nb\",c", "d") },
+				{ "\"a\r\nb\"\r\n", Arrays.asList("\"a\r\nb\"") },
+				{ "\"a \"\"quoted\"\"\nb\",c\nd",
+						Arrays.asList("\"a \"\"quoted\"\"\nb\",c", "d") },
+				{ "\"unterminated\na", Arrays.asList("\"unterminated\na") },
+
+		};
+	}
+
+	@Test(dataProvider = "recordParams")
+	public void shouldSplitRecordsAtUnquotedLineBreaks(String input,
+			List<String> expected) {
+		RecordReader reader = new RecordReader(new StringReader(input));
+		List<String> actual = reader.stream().collect(Collectors.toList());
+		Assert.assertEquals(actual, expected);
+	}
+
+	@DataProvider
+	Object[][] midCellQuoteParams() {
+		return new Object[][] {
+
+				{ "5\" screen,y,2\nnext", ",",
+						Arrays.asList("5\" screen,y,2", "next") },
+				{ "a,b\"c\nd\"e", ",", Arrays.asList("a,b\"c", "d\"e") },
+				{ "a,\"b\"c\"\nd", ",", Arrays.asList("a,\"b\"c\"", "d") },
+				{ "a;\"b\nc\";d\ne", ";",
+						Arrays.asList("a;\"b\nc\";d", "e") },
+				{ "a,\"b\nc\"\nd", ";", Arrays.asList("a,\"b", "c\"", "d") },
+				{ "a::\"b\nc\"\nd", "::", Arrays.asList("a::\"b\nc\"", "d") },
+				{ "a:::\"b\nc", "::", Arrays.asList("a:::\"b", "c") },
+
+		};
+	}
+
+	@Test(dataProvider = "midCellQuoteParams")
+	public void quotesShouldOnlyOpenCells(String input, String delimiter,
+			List<String> expected) {
+		RecordReader reader = new RecordReader(new StringReader(input),
+				delimiter);
+		Assert.assertEquals(reader.stream().collect(Collectors.toList()),
+				expected);
+
+		List<String> records = new ArrayList<>();
+		try (RecordCursor cursor = new ChannelRecordCursor(
+				Channels.newChannel(new ByteArrayInputStream(input
+						.getBytes(StandardCharsets.UTF_8))),
+				StandardCharsets.UTF_8, delimiter)) {
+			while (cursor.next()) {
+				records.add(cursor.record().toString());
+			}
+		}
+		Assert.assertEquals(records, expected);
+	}
+
+	@Test
+	public void recordsShouldSpanBufferBoundaries() {
+		StringBuilder input = new StringBuilder();
+		StringBuilder quoted = new StringBuilder("\"");
+		for (int i = 0; i < 10000; i++) {
+			input.append(i).append("\r\n");
+			quoted.append(i).append('\n');
+		}
+		quoted.append('"');
+		input.append(quoted).append("\r\nlast");
+
+		RecordReader reader = new RecordReader(new StringReader(
+				input.toString()));
+		for (int i = 0; i < 10000; i++) {
+			Assert.assertEquals(reader.next(), String.valueOf(i));
+		}
+		Assert.assertEquals(reader.next(), quoted.toString());
+		Assert.assertEquals(reader.next(), "last");
+		Assert.assertNull(reader.next());
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.parse;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class NumbersTest {
+
+	@DataProvider
+	Object[][] intParams() {
+		return new Object[][] { { "0" }, { "5" }, { "-5" }, { "+5" },
+				{ "007" }, { "2147483647" }, { "-2147483648" }, };
+	}
+
+	@Test(dataProvider = "intParams")
+	public void shouldParseIntsAsInteger(String value) {
+		String line = "x," + value + ",y";
+		int actual = Numbers.parseInt(line, 2, 2 + value.length());
+		Assert.assertEquals(actual, Integer.parseInt(value));
+	}
+
+	@DataProvider
+	Object[][] invalidIntParams() {
+		return new Object[][] { { "" }, { "-" }, { "+" }, { "1.0" },
+				{ " 1" }, { "1a" }, { "2147483648" }, { "-2147483649" },
+				{ "99999999999999999999" }, };
+	}
+
+	@Test(dataProvider = "invalidIntParams", expectedExceptions = NumberFormatException.class)
+	public void shouldRejectInvalidInts(String value) {
+		Numbers.parseInt(value, 0, value.length());
+	}
+
+	@DataProvider
+	Object[][] longParams() {
+		return new Object[][] { { "0" }, { "-12345678901" },
+				{ "9223372036854775807" }, { "-9223372036854775808" }, };
+	}
+
+	@Test(dataProvider = "longParams")
+	public void shouldParseLongsAsLong(String value) {
+		Assert.assertEquals(Numbers.parseLong(value, 0, value.length()),
+				Long.parseLong(value));
+	}
+
+	@Test(expectedExceptions = NumberFormatException.class)
+	public void shouldRejectLongOverflow() {
+		String value = "9223372036854775808";
+		Numbers.parseLong(value, 0, value.length());
+	}
+
+	@DataProvider
+	Object[][] doubleParams() {
+		return new Object[][] { { "0" }, { "-0" }, { "-0.0" }, { "3.14" },
+				{ "+2.71" }, { "1." }, { ".5" }, { "0.05" }, { "1e5" },
+				{ "1.5E-3" }, { "-2e+10" }, { "123456789012345" },
+				{ "1234567890123456789" }, { "0.1234567890123456789" },
+				{ "1e300" }, { "4.9e-324" }, { "1e-400" }, { "NaN" },
+				{ "-Infinity" }, { " 1.5 " }, { "1.5d" }, { "0x1p3" }, };
+	}
+
+	@Test(dataProvider = "doubleParams")
+	public void shouldParseDoublesAsDouble(String value) {
+		Assert.assertEquals(
+				Double.doubleToRawLongBits(Numbers.parseDouble(value, 0,
+						value.length())),
+				Double.doubleToRawLongBits(Double.parseDouble(value)));
+	}
+
+	@Test
+	public void shouldParseRandomDoublesAsDouble() {
+		Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			double d = random.nextDouble()
+					* Math.pow(10, random.nextInt(20) - 10);
+			for (String value : new String[] { Double.toString(d),
+					String.format(Locale.ROOT, "%.4f", d),
+					String.format(Locale.ROOT, "%.2e", -d) }) {
+				Assert.assertEquals(Numbers.parseDouble(value, 0,
+						value.length()), Double.parseDouble(value), value);
+			}
+		}
+	}
+
+	@DataProvider
+	Object[][] invalidDoubleParams() {
+		return new Object[][] { { "" }, { "." }, { "-" }, { "1e" },
+				{ "1.2.3" }, { "abc" }, };
+	}
+
+	@Test(dataProvider = "invalidDoubleParams", expectedExceptions = NumberFormatException.class)
+	public void shouldRejectInvalidDoubles(String value) {
+		Numbers.parseDouble(value, 0, value.length());
+	}
+
+	@DataProvider
+	Object[][] booleanParams() {
+		return new Object[][] { { "true" }, { "TRUE" }, { "True" },
+				{ "false" }, { "yes" }, { "" }, { "truee" }, };
+	}
+
+	@Test(dataProvider = "booleanParams")
+	public void shouldParseBooleansAsBoolean(String value) {
+		Assert.assertEquals(Numbers.parseBoolean(value, 0, value.length()),
+				Boolean.parseBoolean(value));
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package csv4j.parse;
+
+import java.util.regex.Pattern;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TokenizerTest {
+
+	@DataProvider
+	Object[][] splitParams() {
+		return new Object[][] {
+
+		{ ",", "field0,field1,field2" }, { ",", "0,,3.14" },
+				{ ",", "" }, { ",", "," }, { ",", ",field0, ,,field1,field2," },
+				{ "\t", "0\tcsv\t3.14\t\t" }, { "||", "a||b|||c||" },
+				{ "||", "|a|" }, { "ab", "aab" }, { "ab", "abab" },
+				{ ".", "1.2.3" }, { "|", "a|b" },
+
+		};
+	}
+
+	@Test(dataProvider = "splitParams")
+	public void shouldSplitLikeStringSplitWithQuotedDelimiter(
+			String delimiter, String line) {
+		Tokenizer tokenizer = Tokenizer.of(delimiter);
+		String[] expected = line.split(Pattern.quote(delimiter), -1);
+
+		Assert.assertEquals(tokenizer.split(line), expected);
+
+		Cells cells = tokenizer.tokenize(line);
+		Assert.assertEquals(cells.count(), expected.length);
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals(cells.line().subSequence(cells.start(i),
+					cells.end(i)).toString(), expected[i]);
+			Assert.assertEquals(cells.isEmpty(i), expected[i].isEmpty());
+		}
+	}
+
+	@DataProvider
+	Object[][] quotedParams() {
+		return new Object[][] {
+
+				{ ",", "\"a,b\",c", new String[] { "a,b", "c" } },
+				{ ",", "\"\",\"\"", new String[] { "", "" } },
+				{ ",", "a,\"b\"", new String[] { "a", "b" } },
+				{ ",", "\"say \"\"hi\"\"\",x",
+						new String[] { "say \"hi\"", "x" } },
+				{ ",", "\"multi\r\nline\"", new String[] { "multi\r\nline" } },
+				{ ",", "a\"b,c", new String[] { "a\"b", "c" } },
+				{ ",", "\"ab\"cd,e", new String[] { "abcd", "e" } },
+				{ ",", "\"open,end", new String[] { "open,end" } },
+				{ "||", "\"a||b\"||c||", new String[] { "a||b", "c", "" } },
+				{ "\t", "\"a\tb\"\t\"\"\"\"", new String[] { "a\tb", "\"" } },
+
+		};
+	}
+
+	@Test(dataProvider = "quotedParams")
+	public void shouldUnquoteQuotedCells(String delimiter, String line,
+			String[] expected) {
+		Assert.assertEquals(Tokenizer.of(delimiter).split(line), expected);
+	}
+
+	@Test(dataProvider = "quotedParams")
+	public void shouldTokenizeProjectedCellsOnly(String delimiter,
+			String line, String[] expected) {
+		// project every other column, starting from the last one
+		boolean[] projection = new boolean[expected.length];
+		for (int i = expected.length - 1; i >= 0; i -= 2) {
+			projection[i] = true;
+		}
+		Cells cells = Tokenizer.of(delimiter).tokenize(line, projection);
+		Assert.assertEquals(cells.count(), expected.length);
+		for (int i = 0; i < expected.length; i++) {
+			if (projection[i]) {
+				Assert.assertEquals(cells.toString(i), expected[i]);
+			}
+		}
+	}
+
+	@Test
+	public void shouldCountCellsPastTheProjection() {
+		Tokenizer tokenizer = Tokenizer.of(",");
+		Cells cells = tokenizer.tokenize("a,\"b,c\",d,e", new boolean[] {
+				false, false, true });
+		Assert.assertEquals(cells.count(), 4);
+		Assert.assertEquals(cells.toString(2), "d");
+	}
+
+	@Test
+	public void plainQuotedCellsShouldBeSlicesOfTheLine() {
+		String line = "\"a,b\",\"c\"\"d\"";
+		Cells cells = Tokenizer.of(",").tokenize(line);
+		Assert.assertFalse(cells.isEscaped(0));
+		Assert.assertEquals(line.substring(cells.start(0), cells.end(0)),
+				"a,b");
+		Assert.assertTrue(cells.isEscaped(1));
+		Assert.assertEquals(cells.toString(1), "c\"d");
+	}
+
+	@Test
+	public void shouldReuseCellsBufferForWideLines() {
+		Tokenizer tokenizer = Tokenizer.of(",");
+		StringBuilder wide = new StringBuilder("0");
+		for (int i = 1; i < 100; i++) {
+			wide.append(',').append(i);
+		}
+		Cells first = tokenizer.tokenize(wide);
+		Assert.assertEquals(first.count(), 100);
+		Assert.assertEquals(first.toString(99), "99");
+
+		Cells second = tokenizer.tokenize("a,b");
+		Assert.assertSame(second, first);
+		Assert.assertEquals(second.toArray(), new String[] { "a", "b" });
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void emptyDelimiterShouldBeRejected() {
+		Tokenizer.of("");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void quoteDelimiterShouldBeRejected() {
+		Tokenizer.of("\"");
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2015 Yannis Theocharis
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package csv4j.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import csv4j.CsvHydrator;
+import csv4j.annotations.CsvFields;
+
+public class CsvHydratorProcessorTest {
+
+	private static final String SOURCE = "package acme;\n"
+			+ "import csv4j.annotations.CsvFields;\n"
+			+ "public class Trade {\n"
+			+ "	@CsvFields({ \"qty\", \"\\\"quantity\\\"\" }) long quantity;\n"
+			+ "	Side side;\n"
+			+ "	public void setQuantity(long quantity) { this.quantity = quantity; }\n"
+			+ "	public void setSide(Side side) { this.side = side; }\n"
+			+ "	public long getQuantity() { return quantity; }\n"
+			+ "	public Side getSide() { return side; }\n"
+			+ "	public enum Side { BUY, SELL }\n"
+			+ "	public static class Leg {\n"
+			+ "		@CsvFields(\"px\") private double price;\n"
+			+ "		void setPrice(double price) { this.price = price; }\n"
+			+ "	}\n"
+			+ "	public static class Hidden {\n"
+			+ "		@CsvFields(\"id\") private int id;\n"
+			+ "		private void setId(int id) { this.id = id; }\n"
+			+ "	}\n"
+			+ "}\n";
+
+	@Test
+	public void shouldGenerateHydratorsOfTypesWithAccessibleSetters()
+			throws Exception {
+		Path dir = Files.createTempDirectory("processor");
+		try {
+			DiagnosticCollector<JavaFileObject> diagnostics = compile(dir);
+
+			Assert.assertTrue(Files.exists(dir
+					.resolve("acme/TradeCsvHydrator.class")));
+			Assert.assertTrue(Files.exists(dir
+					.resolve("acme/Trade$LegCsvHydrator.class")));
+			Assert.assertFalse(Files.exists(dir
+					.resolve("acme/Trade$HiddenCsvHydrator.class")));
+			Assert.assertTrue(diagnostics
+					.getDiagnostics()
+					.stream()
+					.anyMatch(
+							d -> d.getKind() == Diagnostic.Kind.NOTE
+									&& d.getMessage(null).contains(
+											"no accessible setter for id")));
+
+			try (URLClassLoader loader = new URLClassLoader(
+					new URL[] { dir.toUri().toURL() }, getClass()
+							.getClassLoader())) {
+				@SuppressWarnings("unchecked")
+				CsvHydrator<Object> hydrator = (CsvHydrator<Object>) loader
+						.loadClass("acme.TradeCsvHydrator").newInstance();
+				Object trade = hydrator.newInstance();
+				Assert.assertEquals(hydrator.fieldOf("qty"), 0);
+				Assert.assertEquals(hydrator.fieldOf("\"quantity\""), 0);
+				Assert.assertEquals(hydrator.fieldOf("quantity"), 0);
+				Assert.assertEquals(hydrator.fieldOf("side"), 1);
+				Assert.assertEquals(hydrator.fieldOf("price"), -1);
+				Assert.assertEquals(hydrator.typeOf(0), long.class);
+
+				hydrator.parse(trade, 0, "x42", 1, 3);
+				hydrator.set(trade, 1, hydrator.typeOf(1).getEnumConstants()[1]);
+				Assert.assertEquals(
+						trade.getClass().getMethod("getQuantity")
+								.invoke(trade), 42L);
+				Assert.assertEquals(trade.getClass().getMethod("getSide")
+						.invoke(trade).toString(), "SELL");
+			}
+		} finally {
+			try (Stream<Path> files = Files.walk(dir)) {
+				for (Path p : files.sorted((a, b) -> b.compareTo(a)).collect(
+						Collectors.toList())) {
+					Files.delete(p);
+				}
+			}
+		}
+	}
+
+	private DiagnosticCollector<JavaFileObject> compile(final Path dir)
+			throws IOException {
+		Path source = dir.resolve("acme/Trade.java");
+		Files.createDirectories(source.getParent());
+		Files.write(source, SOURCE.getBytes(StandardCharsets.UTF_8));
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager files = compiler.getStandardFileManager(
+				diagnostics, null, StandardCharsets.UTF_8)) {
+			String classpath = new File(CsvFields.class.getProtectionDomain()
+					.getCodeSource().getLocation().getPath()).getPath();
+			boolean compiled = compiler.getTask(
+					null,
+					files,
+					diagnostics,
+					Arrays.asList("-classpath", classpath, "-d",
+							dir.toString(), "-processor",
+							CsvHydratorProcessor.class.getName()), null,
+					files.getJavaFileObjects(source.toFile())).call();
+			Assert.assertTrue(compiled, diagnostics.getDiagnostics()
+					.toString());
+		}
+		return diagnostics;
+	}
+}